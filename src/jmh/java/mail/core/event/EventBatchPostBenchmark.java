@@ -0,0 +1,76 @@
+package mail.core.event;
+
+import mail.api.event.Event;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link EventBusImpl#postAll(Event...)} against posting the same events one at a time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(EventBatchPostBenchmark.BATCH_SIZE)
+public class EventBatchPostBenchmark {
+
+    static final int BATCH_SIZE = 1000;
+
+    @Param({"1", "10", "50"})
+    private int handlers;
+
+    private final EventBusImpl eventBus = new EventBusImpl();
+    private final TestEvent[] events = new TestEvent[BATCH_SIZE];
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < handlers; i++) {
+            eventBus.register(new Listener());
+        }
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            events[i] = new TestEvent();
+        }
+    }
+
+    @Benchmark
+    public void postLoop() {
+        for (TestEvent event : events) {
+            eventBus.post(event);
+        }
+    }
+
+    @Benchmark
+    public void postAll() {
+        eventBus.postAll(events);
+    }
+
+    public static class TestEvent implements Event {
+
+        private int received;
+
+    }
+
+    public static class Listener {
+
+        @Event.Subscribe
+        public void onEvent(TestEvent event) {
+            event.received++;
+        }
+
+    }
+
+}
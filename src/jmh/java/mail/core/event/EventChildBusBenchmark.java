@@ -0,0 +1,80 @@
+package mail.core.event;
+
+import mail.api.event.Event;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of setting up one internal bus per mod, comparing independent buses against children of a shared
+ * parent, and posting to a child that bubbles up to its parent.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventChildBusBenchmark {
+
+    private static final int MODS = 300;
+
+    private final TestEvent event = new TestEvent();
+
+    private EventBusImpl parent;
+    private EventBusImpl bubblingChild;
+
+    @Setup
+    public void setup() {
+        parent = new EventBusImpl();
+        parent.register(Listener.class);
+        bubblingChild = parent.createChild(true);
+        bubblingChild.register(Listener.class);
+    }
+
+    @Benchmark
+    public Object independentBuses() {
+        EventBusImpl[] buses = new EventBusImpl[MODS];
+        for (int i = 0; i < MODS; i++) {
+            buses[i] = new EventBusImpl();
+            buses[i].post(event);
+        }
+        return buses;
+    }
+
+    @Benchmark
+    public Object childBuses() {
+        EventBusImpl[] buses = new EventBusImpl[MODS];
+        for (int i = 0; i < MODS; i++) {
+            buses[i] = parent.createChild(false);
+            buses[i].post(event);
+        }
+        return buses;
+    }
+
+    @Benchmark
+    public Object postBubbling() {
+        return bubblingChild.post(event);
+    }
+
+    public static class TestEvent implements Event {
+    }
+
+    public static class Listener {
+
+        @Event.Subscribe
+        public static void onEvent(TestEvent event) {
+        }
+
+    }
+
+}
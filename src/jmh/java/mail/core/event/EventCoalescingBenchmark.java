@@ -0,0 +1,86 @@
+package mail.core.event;
+
+import mail.api.event.Event;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures a tick's worth of updates for a handful of keys, posted one by one or through a coalescing queue that only
+ * posts the last update of every key.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventCoalescingBenchmark {
+
+    private static final int UPDATES = 1000;
+
+    @Param({"1", "16", "256"})
+    public int keys;
+
+    private final EventBusImpl eventBus = new EventBusImpl();
+    private final CoalescingEventQueue queue = eventBus.createCoalescingQueue();
+    private Integer[] boxedKeys;
+
+    @Setup
+    public void setup() {
+        eventBus.register(new Listener());
+        eventBus.register(new Listener());
+        boxedKeys = new Integer[keys];
+        for (int i = 0; i < keys; i++) {
+            boxedKeys[i] = i;
+        }
+    }
+
+    @Benchmark
+    public Object postDirectly() {
+        for (int i = 0; i < UPDATES; i++) {
+            eventBus.post(new UpdateEvent(i));
+        }
+        return eventBus;
+    }
+
+    @Benchmark
+    public int postCoalesced() {
+        for (int i = 0; i < UPDATES; i++) {
+            queue.post(boxedKeys[i % keys], new UpdateEvent(i));
+        }
+        return queue.flush();
+    }
+
+    public static class UpdateEvent implements Event {
+
+        private final int value;
+
+        public UpdateEvent(int value) {
+            this.value = value;
+        }
+
+    }
+
+    public static class Listener {
+
+        private long sum;
+
+        @Event.Subscribe
+        public void onUpdate(UpdateEvent event) {
+            sum += event.value;
+        }
+
+    }
+
+}
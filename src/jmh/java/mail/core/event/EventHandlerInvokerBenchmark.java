@@ -0,0 +1,153 @@
+package mail.core.event;
+
+import mail.api.event.Event;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the generated subscriber invokers against calling the same subscribers through
+ * {@link MethodHandle#invokeWithArguments(Object...)}, which is what {@link EventHandlerType.EventHandler} used to do.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventHandlerInvokerBenchmark {
+
+    private final TestEvent event = new TestEvent();
+    private final TestResultEvent resultEvent = new TestResultEvent();
+    private final InstanceListener instanceListener = new InstanceListener();
+    private final Object[] properties = new Object[1];
+
+    private EventHandlerType.EventHandler staticHandler, instanceHandler, unpackHandler, resultHandler;
+    private MethodHandle staticHandle, instanceHandle, unpackHandle, resultHandle, propertyHandle;
+
+    @Setup
+    public void setup() throws Exception {
+        staticHandler = handler(StaticListener.class, true);
+        instanceHandler = handler(InstanceListener.class, false);
+        unpackHandler = handler(UnpackListener.class, true);
+        resultHandler = handler(ResultListener.class, true);
+
+        staticHandle = unreflect(StaticListener.class.getMethod("onEvent", TestEvent.class));
+        instanceHandle = unreflect(InstanceListener.class.getMethod("onEvent", TestEvent.class));
+        unpackHandle = unreflect(UnpackListener.class.getMethod("onEvent", TestEvent.class, int.class));
+        resultHandle = unreflect(ResultListener.class.getMethod("onEvent", TestResultEvent.class, int.class));
+        propertyHandle = unreflect(TestEvent.class.getMethod("getValue"));
+    }
+
+    @Benchmark
+    public Object legacyStatic() throws Throwable {
+        return staticHandle.invokeWithArguments(new Object[]{event});
+    }
+
+    @Benchmark
+    public Object invokerStatic() throws Throwable {
+        return staticHandler.fire(null, event, null, properties);
+    }
+
+    @Benchmark
+    public Object legacyInstance() throws Throwable {
+        return instanceHandle.invokeWithArguments(new Object[]{instanceListener, event});
+    }
+
+    @Benchmark
+    public Object invokerInstance() throws Throwable {
+        return instanceHandler.fire(instanceListener, event, null, properties);
+    }
+
+    @Benchmark
+    public Object legacyUnpack() throws Throwable {
+        return unpackHandle.invokeWithArguments(new Object[]{event, propertyHandle.invoke(event)});
+    }
+
+    @Benchmark
+    public Object invokerUnpack() throws Throwable {
+        return unpackHandler.fire(null, event, null, properties);
+    }
+
+    @Benchmark
+    public Object legacyResult() throws Throwable {
+        return resultHandle.invokeWithArguments(new Object[]{resultEvent, 1});
+    }
+
+    @Benchmark
+    public Object invokerResult() throws Throwable {
+        return resultHandler.fire(null, resultEvent, 1, properties);
+    }
+
+    private static EventHandlerType.EventHandler handler(Class<?> listener, boolean isStatic) {
+        return EventHandlerType.of(listener, isStatic).getHandlers().iterator().next();
+    }
+
+    private static MethodHandle unreflect(Method method) throws IllegalAccessException {
+        return MethodHandles.publicLookup().unreflect(method);
+    }
+
+    public static class TestEvent implements Event {
+
+        @Property(value = "value", mutable = true)
+        public int getValue() {
+            return 1;
+        }
+
+    }
+
+    public static class TestResultEvent implements Event.WithResult<Integer> {
+
+        @Override
+        public Integer getDefaultResult() {
+            return 0;
+        }
+
+    }
+
+    public static class StaticListener {
+
+        @Event.Subscribe
+        public static void onEvent(TestEvent event) {
+        }
+
+    }
+
+    public static class InstanceListener {
+
+        @Event.Subscribe
+        public void onEvent(TestEvent event) {
+        }
+
+    }
+
+    public static class UnpackListener {
+
+        @Event.Subscribe
+        public static void onEvent(TestEvent event, @Event.Unpack("value") int value) {
+        }
+
+    }
+
+    public static class ResultListener {
+
+        @Event.Subscribe
+        public static int onEvent(TestResultEvent event, @Event.Result int prevResult) {
+            return prevResult + 1;
+        }
+
+    }
+
+}
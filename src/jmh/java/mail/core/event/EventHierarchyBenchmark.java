@@ -0,0 +1,160 @@
+package mail.core.event;
+
+import mail.api.event.Event;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how hooking up new event types and registering handlers scale on a bus that has already seen 10k event
+ * classes. The classes are proxies implementing every combination of a set of marker interfaces, so they share a real
+ * hierarchy of supertypes.
+ */
+@State(Scope.Benchmark)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+public class EventHierarchyBenchmark {
+
+    private static final int EVENT_CLASSES = 10000;
+    private static final int NEW_CLASSES = 1000;
+
+    private static final Class<?>[] MARKERS = {
+            Marker0.class, Marker1.class, Marker2.class, Marker3.class, Marker4.class, Marker5.class, Marker6.class,
+            Marker7.class, Marker8.class, Marker9.class, Marker10.class, Marker11.class, Marker12.class, Marker13.class
+    };
+
+    private final List<Class<? extends Event>> eventClasses = new ArrayList<>();
+
+    @Setup
+    public void setup() {
+        ClassLoader loader = EventHierarchyBenchmark.class.getClassLoader();
+        for (int mask = 1; eventClasses.size() < EVENT_CLASSES; mask++) {
+            List<Class<?>> interfaces = new ArrayList<>();
+            for (int i = 0; i < MARKERS.length; i++) {
+                if ((mask & (1 << i)) != 0) {
+                    interfaces.add(MARKERS[i]);
+                }
+            }
+            eventClasses.add((Class<? extends Event>) Proxy.getProxyClass(loader, interfaces.toArray(new Class<?>[0])));
+        }
+    }
+
+    /**
+     * A bus that has already dispatched all but the last {@link #NEW_CLASSES} event classes, recreated for every
+     * iteration so those classes are new to it again.
+     */
+    @State(Scope.Thread)
+    public static class PopulatedBus {
+
+        private EventBusImpl eventBus;
+        private int next;
+
+        @Setup(Level.Iteration)
+        public void setup(EventHierarchyBenchmark benchmark) {
+            eventBus = new EventBusImpl();
+            eventBus.register(Listener.class);
+            for (int i = 0; i < EVENT_CLASSES - NEW_CLASSES; i++) {
+                eventBus.hasListeners(benchmark.eventClasses.get(i));
+            }
+            next = EVENT_CLASSES - NEW_CLASSES;
+        }
+
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5, batchSize = NEW_CLASSES)
+    @Measurement(iterations = 10, batchSize = NEW_CLASSES)
+    public boolean hookUpNewType(PopulatedBus state) {
+        return state.eventBus.hasListeners(eventClasses.get(state.next++));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 5, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public void registerLeafHandler(PopulatedBus state) {
+        state.eventBus.register(LeafListener.class);
+        state.eventBus.unregister(LeafListener.class);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @Warmup(iterations = 5, time = 1)
+    @Measurement(iterations = 5, time = 1)
+    public void subscribeLeafHandler(PopulatedBus state) {
+        state.eventBus.subscribe(LeafListener.class).close();
+    }
+
+    public interface Marker0 extends Event {
+    }
+
+    public interface Marker1 extends Event {
+    }
+
+    public interface Marker2 extends Event {
+    }
+
+    public interface Marker3 extends Event {
+    }
+
+    public interface Marker4 extends Event {
+    }
+
+    public interface Marker5 extends Event {
+    }
+
+    public interface Marker6 extends Event {
+    }
+
+    public interface Marker7 extends Event {
+    }
+
+    public interface Marker8 extends Event {
+    }
+
+    public interface Marker9 extends Event {
+    }
+
+    public interface Marker10 extends Event {
+    }
+
+    public interface Marker11 extends Event {
+    }
+
+    public interface Marker12 extends Event {
+    }
+
+    public interface Marker13 extends Event {
+    }
+
+    public static class Listener {
+
+        @Event.Subscribe
+        public static void onEvent(Marker0 event) {
+        }
+
+    }
+
+    public static class LeafListener {
+
+        @Event.Subscribe
+        public static void onEvent(Marker13 event) {
+        }
+
+    }
+
+}
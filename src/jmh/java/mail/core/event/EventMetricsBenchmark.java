@@ -0,0 +1,72 @@
+package mail.core.event;
+
+import mail.api.event.Event;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of dispatch metrics, comparing posting with them disabled and enabled, both from a single
+ * thread and from several threads at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventMetricsBenchmark {
+
+    private final TestEvent event = new TestEvent();
+
+    private EventBusImpl plainBus, meteredBus;
+
+    @Setup
+    public void setup() {
+        plainBus = new EventBusImpl();
+        meteredBus = new EventBusImpl();
+        for (int i = 0; i < 10; i++) {
+            plainBus.register(new Listener());
+            meteredBus.register(new Listener());
+        }
+        meteredBus.enableMetrics();
+    }
+
+    @Benchmark
+    public Object disabled() {
+        return plainBus.post(event);
+    }
+
+    @Benchmark
+    public Object enabled() {
+        return meteredBus.post(event);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object enabledContended() {
+        return meteredBus.post(event);
+    }
+
+    public static class TestEvent implements Event {
+    }
+
+    public static class Listener {
+
+        @Event.Subscribe
+        public void onEvent(TestEvent event) {
+        }
+
+    }
+
+}
@@ -0,0 +1,90 @@
+package mail.core.event;
+
+import mail.api.event.Event;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures posting an event to many independent handlers that each do some work, run one after another or fanned out
+ * over the common fork-join pool because they are marked as parallel-safe.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventParallelBenchmark {
+
+    @Param({"10", "100", "500"})
+    public int handlers;
+
+    // Roughly how much work each handler does, in Blackhole#consumeCPU tokens
+    @Param({"100", "1000"})
+    public int work;
+
+    private final EventBusImpl sequentialBus = new EventBusImpl();
+    private final EventBusImpl parallelBus = new EventBusImpl();
+    private WorkEvent event;
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < handlers; i++) {
+            sequentialBus.register(new SequentialListener());
+            parallelBus.register(new ParallelListener());
+        }
+        event = new WorkEvent(work);
+    }
+
+    @Benchmark
+    public Object postSequential() {
+        return sequentialBus.post(event);
+    }
+
+    @Benchmark
+    public Object postParallel() {
+        return parallelBus.post(event);
+    }
+
+    public static class WorkEvent implements Event {
+
+        private final int work;
+
+        public WorkEvent(int work) {
+            this.work = work;
+        }
+
+    }
+
+    public static class SequentialListener {
+
+        @Event.Subscribe
+        public void onEvent(WorkEvent event) {
+            Blackhole.consumeCPU(event.work);
+        }
+
+    }
+
+    public static class ParallelListener {
+
+        @ParallelSafe
+        @Event.Subscribe
+        public void onEvent(WorkEvent event) {
+            Blackhole.consumeCPU(event.work);
+        }
+
+    }
+
+}
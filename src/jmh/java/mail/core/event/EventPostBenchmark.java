@@ -0,0 +1,278 @@
+package mail.core.event;
+
+import mail.api.event.Event;
+import mail.api.event.EventBus;
+import mail.api.event.EventPhase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the throughput and latency distribution of posting events through the features of the bus that affect
+ * dispatching: the number of handlers, the depth of the event hierarchy, static and instance subscribers, unpacked
+ * properties, generic matching, cancellation, result chaining and staged posting.
+ * Run through the jmh task, which also attaches the GC profiler to report the allocation rate per post.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventPostBenchmark {
+
+    /**
+     * A bus with a number of instance handlers for the root of an event hierarchy, which is posted a leaf a number of
+     * levels below it.
+     */
+    @State(Scope.Thread)
+    public static class Hierarchy {
+
+        @Param({"1", "10", "50"})
+        public int handlers;
+
+        @Param({"0", "4", "8"})
+        public int depth;
+
+        private final EventBus eventBus = new EventBusImpl();
+        private Event event;
+
+        @Setup
+        public void setup() {
+            for (int i = 0; i < handlers; i++) {
+                eventBus.register(new RootListener());
+            }
+            Event[] events = {
+                    new Depth0Event(), new Depth1Event(), new Depth2Event(), new Depth3Event(), new Depth4Event(),
+                    new Depth5Event(), new Depth6Event(), new Depth7Event(), new Depth8Event()
+            };
+            event = events[depth];
+        }
+
+    }
+
+    /**
+     * A bus with one of each kind of subscriber the other benchmarks need.
+     */
+    @State(Scope.Thread)
+    public static class Features {
+
+        private final EventBusImpl eventBus = new EventBusImpl();
+        private final Depth0Event event = new Depth0Event();
+        private final StaticEvent staticEvent = new StaticEvent();
+        private final UnpackEvent unpackEvent = new UnpackEvent();
+        private final GenericEvent<String> matchingEvent = new GenericEvent<>(String.class);
+        private final GenericEvent<Integer> otherEvent = new GenericEvent<>(Integer.class);
+        private final CanceledEvent canceledEvent = new CanceledEvent();
+        private final ResultEvent resultEvent = new ResultEvent();
+
+        @Setup
+        public void setup() {
+            eventBus.register(StaticListener.class);
+            eventBus.register(new RootListener());
+            eventBus.register(UnpackListener.class);
+            eventBus.register(GenericListener.class);
+            eventBus.register(CancelingListener.class);
+            for (int i = 0; i < 10; i++) {
+                eventBus.register(new ResultListener());
+            }
+        }
+
+    }
+
+    @Benchmark
+    public Object postHierarchy(Hierarchy state) {
+        return state.eventBus.post(state.event);
+    }
+
+    @Benchmark
+    public Object postStatic(Features state) {
+        return state.eventBus.post(state.staticEvent);
+    }
+
+    @Benchmark
+    public Object postInstance(Features state) {
+        return state.eventBus.post(state.event);
+    }
+
+    @Benchmark
+    public Object postUnpack(Features state) {
+        return state.eventBus.post(state.unpackEvent);
+    }
+
+    @Benchmark
+    public Object postGenericMatching(Features state) {
+        return state.eventBus.post(state.matchingEvent);
+    }
+
+    @Benchmark
+    public Object postGenericOther(Features state) {
+        return state.eventBus.post(state.otherEvent);
+    }
+
+    @Benchmark
+    public Object postCanceled(Features state) {
+        return state.eventBus.post(state.canceledEvent);
+    }
+
+    @Benchmark
+    public Object postWithResult(Features state) {
+        return state.eventBus.post(state.resultEvent);
+    }
+
+    @Benchmark
+    public Object postManually(Features state) {
+        EventBus.PostedEvent.WithResult<Integer> posted = state.eventBus.postManually(state.resultEvent);
+        posted.firePre();
+        posted.fireDefault();
+        posted.firePost();
+        return posted.getResult();
+    }
+
+    public static class Depth0Event implements Event {
+    }
+
+    public static class Depth1Event extends Depth0Event {
+    }
+
+    public static class Depth2Event extends Depth1Event {
+    }
+
+    public static class Depth3Event extends Depth2Event {
+    }
+
+    public static class Depth4Event extends Depth3Event {
+    }
+
+    public static class Depth5Event extends Depth4Event {
+    }
+
+    public static class Depth6Event extends Depth5Event {
+    }
+
+    public static class Depth7Event extends Depth6Event {
+    }
+
+    public static class Depth8Event extends Depth7Event {
+    }
+
+    public static class StaticEvent implements Event {
+    }
+
+    public static class UnpackEvent implements Event {
+
+        @Property("value")
+        public int getValue() {
+            return 42;
+        }
+
+        @Property(value = "name", mutable = true)
+        public String getName() {
+            return "name";
+        }
+
+    }
+
+    public static class GenericEvent<T> implements Event.Generic {
+
+        private final Class<T> type;
+
+        public GenericEvent(Class<T> type) {
+            this.type = type;
+        }
+
+        @Override
+        public boolean matchesGenericType(Class<? extends Generic> eventType, int index, Class<?> type) {
+            return eventType == GenericEvent.class && index == 0 && type == this.type;
+        }
+
+    }
+
+    public static class CanceledEvent implements Event.Cancelable {
+    }
+
+    public static class ResultEvent implements Event.WithResult<Integer> {
+
+        @Override
+        public Integer getDefaultResult() {
+            return 0;
+        }
+
+    }
+
+    public static class RootListener {
+
+        @Event.Subscribe
+        public void onEvent(Depth0Event event) {
+        }
+
+    }
+
+    public static class StaticListener {
+
+        @Event.Subscribe
+        public static void onEvent(StaticEvent event) {
+        }
+
+    }
+
+    public static class UnpackListener {
+
+        @Event.Subscribe
+        public static void onEvent(UnpackEvent event, @Event.Unpack("value") int value, @Event.Unpack("name") String name) {
+        }
+
+        @Event.Subscribe(phase = EventPhase.POST)
+        public static void onEventPost(UnpackEvent event, @Event.Unpack("value") int value) {
+        }
+
+    }
+
+    public static class GenericListener {
+
+        @Event.Subscribe
+        public static void onString(GenericEvent<String> event) {
+        }
+
+        @Event.Subscribe
+        public static void onAny(GenericEvent<?> event) {
+        }
+
+    }
+
+    public static class CancelingListener {
+
+        @Event.Subscribe(phase = EventPhase.CANCELLATION)
+        public static boolean onCancellation(CanceledEvent event, @Event.Result boolean canceled) {
+            return true;
+        }
+
+        @Event.Subscribe
+        public static void onEvent(CanceledEvent event) {
+        }
+
+        @Event.Subscribe(receiveCanceled = true)
+        public static void onCanceled(CanceledEvent event) {
+        }
+
+    }
+
+    public static class ResultListener {
+
+        @Event.Subscribe
+        public int onEvent(ResultEvent event, @Event.Result int prevResult) {
+            return prevResult + 1;
+        }
+
+    }
+
+}
@@ -0,0 +1,95 @@
+package mail.core.event;
+
+import mail.api.event.Event;
+import mail.api.event.EventBus;
+import mail.api.event.EventPhase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares posting the same event class over and over through the bus against posting it through a prepared event,
+ * both in one go and one phase at a time.
+ * Run with {@code -prof gc} to see what manual posts allocate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventPreparedBenchmark {
+
+    private final EventBusImpl eventBus = new EventBusImpl();
+    private final TestEvent event = new TestEvent();
+    private EventBusImpl.PreparedEvent<TestEvent> prepared;
+
+    @Setup
+    public void setup() {
+        eventBus.register(Listener.class);
+        prepared = eventBus.prepare(TestEvent.class);
+    }
+
+    @Benchmark
+    public Object post() {
+        return eventBus.post(event);
+    }
+
+    @Benchmark
+    public Object postPrepared() {
+        return prepared.post(event);
+    }
+
+    @Benchmark
+    public Object postManually() {
+        EventBus.PostedEvent posted = eventBus.postManually(event);
+        posted.firePre();
+        posted.fireDefault();
+        posted.firePost();
+        return posted;
+    }
+
+    @Benchmark
+    public Object stagePrepared() {
+        EventBus.PostedEvent posted = prepared.stage(event);
+        posted.firePre();
+        posted.fireDefault();
+        posted.firePost();
+        return posted;
+    }
+
+    public static class TestEvent implements Event {
+
+        private int received;
+
+    }
+
+    public static class Listener {
+
+        @Event.Subscribe(phase = EventPhase.PRE)
+        public static void onPre(TestEvent event) {
+            event.received++;
+        }
+
+        @Event.Subscribe
+        public static void onEvent(TestEvent event) {
+            event.received++;
+        }
+
+        @Event.Subscribe(phase = EventPhase.POST)
+        public static void onPost(TestEvent event) {
+            event.received++;
+        }
+
+    }
+
+}
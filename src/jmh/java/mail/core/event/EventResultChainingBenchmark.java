@@ -0,0 +1,85 @@
+package mail.core.event;
+
+import mail.api.event.Event;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures chaining a {@code float} result through many damage modifiers, with handlers that take it as a primitive
+ * and with handlers that take it boxed, which forces every handler to box its result.
+ * Run with {@code -prof gc} to compare how much each post allocates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventResultChainingBenchmark {
+
+    @Param({"10", "100", "500"})
+    public int handlers;
+
+    private final EventBusImpl primitiveBus = new EventBusImpl();
+    private final EventBusImpl boxedBus = new EventBusImpl();
+    private final DamageEvent event = new DamageEvent();
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < handlers; i++) {
+            primitiveBus.register(new PrimitiveModifier());
+            boxedBus.register(new BoxedModifier());
+        }
+    }
+
+    @Benchmark
+    public Float postPrimitive() {
+        return primitiveBus.post(event);
+    }
+
+    @Benchmark
+    public Float postBoxed() {
+        return boxedBus.post(event);
+    }
+
+    public static class DamageEvent implements Event.WithResult<Float> {
+
+        private static final Float BASE_DAMAGE = 10f;
+
+        @Override
+        public Float getDefaultResult() {
+            return BASE_DAMAGE;
+        }
+
+    }
+
+    public static class PrimitiveModifier {
+
+        @Event.Subscribe
+        public float onDamage(DamageEvent event, @Event.Result float damage) {
+            return damage * 0.99f + 0.1f;
+        }
+
+    }
+
+    public static class BoxedModifier {
+
+        @Event.Subscribe
+        public Float onDamage(DamageEvent event, @Event.Result Float damage) {
+            return damage * 0.99f + 0.1f;
+        }
+
+    }
+
+}
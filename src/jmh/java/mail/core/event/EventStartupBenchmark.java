@@ -0,0 +1,190 @@
+package mail.core.event;
+
+import mail.api.event.Event;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Measures how long it takes to register a few thousand listener classes the bus has never seen, like a heavily
+ * modded game does while it starts, without a metadata cache, with an empty one and with one filled by an earlier run.
+ * The listeners are generated and compiled into a jar once per trial, without the event index, and every invocation
+ * loads them again through a new class loader.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class EventStartupBenchmark {
+
+    private static final String PACKAGE = "mail.core.event.generated";
+    private static final int LISTENERS = 3000;
+
+    @Param({"none", "cold", "warm"})
+    public String cache;
+
+    private Path directory;
+    private Path jar;
+    private Path cacheFile;
+
+    @Setup(Level.Trial)
+    public void generate() throws Exception {
+        directory = Files.createTempDirectory("mail-startup-benchmark");
+        jar = directory.resolve("listeners.jar");
+        cacheFile = directory.resolve("event-metadata");
+        compileListeners();
+
+        if (cache.equals("warm")) {
+            EventMetadataCache filled = EventMetadataCache.open(cacheFile);
+            EventMetadataCache.install(filled);
+            registerListeners();
+            filled.save();
+            EventMetadataCache.install(null);
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void clearCache() throws IOException {
+        if (cache.equals("cold")) {
+            Files.deleteIfExists(cacheFile);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void delete() throws IOException {
+        EventMetadataCache.install(null);
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public Object startup() throws Exception {
+        EventMetadataCache opened = null;
+        if (!cache.equals("none")) {
+            opened = EventMetadataCache.open(cacheFile);
+            EventMetadataCache.install(opened);
+        }
+        try {
+            Object bus = registerListeners();
+            if (opened != null) opened.save();
+            return bus;
+        } finally {
+            EventMetadataCache.install(null);
+        }
+    }
+
+    private EventBusImpl registerListeners() throws Exception {
+        EventBusImpl eventBus = new EventBusImpl();
+        try (URLClassLoader loader = new URLClassLoader(new URL[]{jar.toUri().toURL()}, getClass().getClassLoader())) {
+            for (int i = 0; i < LISTENERS; i++) {
+                Class<?> type = loader.loadClass(PACKAGE + ".Listener" + i);
+                eventBus.register(type);
+                eventBus.register(type.newInstance());
+            }
+        }
+        return eventBus;
+    }
+
+    private void compileListeners() throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("The startup benchmark needs to run on a JDK to generate its listeners.");
+        }
+
+        Path sources = Files.createDirectories(directory.resolve("src/" + PACKAGE.replace('.', '/')));
+        Path classes = Files.createDirectories(directory.resolve("classes"));
+        List<String> arguments = new ArrayList<>();
+        arguments.add("-proc:none");
+        arguments.add("-nowarn");
+        arguments.add("-cp");
+        arguments.add(System.getProperty("java.class.path"));
+        arguments.add("-d");
+        arguments.add(classes.toString());
+        for (int i = 0; i < LISTENERS; i++) {
+            Path source = sources.resolve("Listener" + i + ".java");
+            Files.write(source, listenerSource(i).getBytes("UTF-8"));
+            arguments.add(source.toString());
+        }
+        if (compiler.run(null, null, null, arguments.toArray(new String[0])) != 0) {
+            throw new IllegalStateException("Could not compile the generated listeners.");
+        }
+
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar));
+             Stream<Path> files = Files.walk(classes)) {
+            for (Path file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                out.putNextEntry(new JarEntry(classes.relativize(file).toString().replace('\\', '/')));
+                out.write(Files.readAllBytes(file));
+            }
+        }
+    }
+
+    /**
+     * A listener with a static and an instance subscriber, and a few other methods scanning has to go through.
+     */
+    private static String listenerSource(int index) {
+        String benchmark = EventStartupBenchmark.class.getName();
+        return "package " + PACKAGE + ";\n"
+                + "import mail.api.event.Event;\n"
+                + "import mail.api.event.EventPhase;\n"
+                + "public class Listener" + index + " {\n"
+                + "  private int count;\n"
+                + "  @Event.Subscribe\n"
+                + "  public void onEvent(" + benchmark + ".StartupEvent event) { count++; }\n"
+                + "  @Event.Subscribe(phase = EventPhase.POST)\n"
+                + "  public static int onResult(" + benchmark + ".StartupResultEvent event, @Event.Result int result,"
+                + " @Event.Unpack(\"value\") int value) { return result + value; }\n"
+                + "  public int getCount() { return count; }\n"
+                + "  public void reset() { count = 0; }\n"
+                + "  public String describe(int times) { return \"Listener" + index + "\" + times; }\n"
+                + "}\n";
+    }
+
+    public static class StartupEvent implements Event {
+    }
+
+    public static class StartupResultEvent implements Event.WithResult<Integer> {
+
+        @Property("value")
+        public int getValue() {
+            return 1;
+        }
+
+        @Override
+        public Integer getDefaultResult() {
+            return 0;
+        }
+
+    }
+
+}
@@ -0,0 +1,99 @@
+package mail.core.event;
+
+import mail.api.event.Event;
+import mail.api.event.EventPhase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures replaying an event trace back to back, which is how dispatching is compared on a recorded load profile.
+ * Pass a trace recorded from a real session with {@code -p trace=<file>}, otherwise a small mixed workload is recorded
+ * first.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventTraceReplayBenchmark {
+
+    @Param({""})
+    public String trace;
+
+    private EventTraceReplay replay;
+    private EventBusImpl eventBus;
+
+    @Setup
+    public void setup() throws IOException {
+        replay = new EventTraceReplay(EventTrace.read(trace.isEmpty() ? record() : Paths.get(trace)));
+        eventBus = new EventBusImpl();
+    }
+
+    private static Path record() throws IOException {
+        Path file = Files.createTempFile("mail-event-trace", ".trace");
+        file.toFile().deleteOnExit();
+
+        EventBusImpl eventBus = new EventBusImpl();
+        for (int i = 0; i < 20; i++) {
+            eventBus.register(new Listener());
+        }
+        try (EventTraceRecorder recorder = EventTraceRecorder.open(file)) {
+            eventBus.startTracing(recorder);
+            for (int i = 0; i < 1000; i++) {
+                eventBus.post(new TickEvent());
+                if (i % 10 == 0) {
+                    eventBus.post(new ActionEvent());
+                }
+            }
+        }
+        return file;
+    }
+
+    @Benchmark
+    public Object replay() {
+        return replay.replay(eventBus, false);
+    }
+
+    public static class TickEvent implements Event {
+    }
+
+    public static class ActionEvent implements Event.Cancelable {
+    }
+
+    public static class Listener {
+
+        @Event.Subscribe
+        public void onTick(TickEvent event) {
+            Blackhole.consumeCPU(50);
+        }
+
+        @Event.Subscribe(phase = EventPhase.CANCELLATION)
+        public boolean onCancellation(ActionEvent event, @Event.Result boolean canceled) {
+            return canceled;
+        }
+
+        @Event.Subscribe(phase = EventPhase.POST, receiveCanceled = true)
+        public void onAction(ActionEvent event) {
+            Blackhole.consumeCPU(200);
+        }
+
+    }
+
+}
@@ -0,0 +1,161 @@
+package mail.core.event;
+
+import mail.api.event.Event;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.BinaryOperator;
+
+/**
+ * Holds on to events that fire many times between two points where only their final state matters, such as
+ * neighbor updates or position syncs, and posts them to a bus when {@link #flush()} is called.
+ * Events are queued under a key, and an event queued under the same key as a pending event of the same class replaces
+ * or is merged into it, so flushing only costs as much as the number of distinct keys.
+ * Queues are created by {@link EventBusImpl#createCoalescingQueue()}.
+ */
+public final class CoalescingEventQueue {
+
+    private final EventBusImpl eventBus;
+
+    // Grouped by class first, which is also how the bus posts batches, so keys only need to be unique per event class
+    private Map<Class<?>, Map<Object, Event>> pending = new LinkedHashMap<>();
+    private int pendingCount;
+
+    private long queuedCount;
+    private long mergedCount;
+    private long deliveredCount;
+
+    CoalescingEventQueue(EventBusImpl eventBus) {
+        this.eventBus = eventBus;
+    }
+
+    public EventBusImpl getEventBus() {
+        return eventBus;
+    }
+
+    /**
+     * Queues an event, replacing the pending event of the same class with the same key, if there is one.
+     * A replaced event keeps its place in the queue.
+     */
+    public void post(Object key, Event event) {
+        synchronized (this) {
+            queuedCount++;
+            if (getPending(event).put(key, event) != null) {
+                mergedCount++;
+            } else {
+                pendingCount++;
+            }
+        }
+    }
+
+    /**
+     * Queues an event, merging it into the pending event of the same class with the same key, if there is one.
+     * The merger is called with the pending event and the new one, and returns the event that is kept in the queue.
+     * If the merger fails, the pending event is kept and the new one is not counted as queued.
+     */
+    public <T extends Event> void post(Object key, T event, BinaryOperator<T> merger) {
+        synchronized (this) {
+            Map<Object, Event> events = getPending(event);
+            // Pending events under the same key always have the same class as the new one
+            T previous = (T) events.get(key);
+            if (previous != null) {
+                T merged = Objects.requireNonNull(merger.apply(previous, event), "The merger returned null.");
+                events.put(key, merged);
+                mergedCount++;
+            } else {
+                events.put(key, event);
+                pendingCount++;
+            }
+            queuedCount++;
+        }
+    }
+
+    private Map<Object, Event> getPending(Event event) {
+        return pending.computeIfAbsent(event.getClass(), c -> new LinkedHashMap<>());
+    }
+
+    /**
+     * Posts every pending event through all of its phases, in the order they were first queued in, grouped by class.
+     * Events queued while flushing, including by the handlers of the flushed events, are left for the next flush.
+     * If a handler throws, its exception is passed on and the rest of the flushed events are dropped.
+     *
+     * @return the number of events that were posted
+     */
+    public int flush() {
+        Map<Class<?>, Map<Object, Event>> events;
+        int count;
+        synchronized (this) {
+            if (pendingCount == 0) return 0;
+
+            events = pending;
+            count = pendingCount;
+            pending = new LinkedHashMap<>();
+            pendingCount = 0;
+        }
+
+        List<Event> batch = new ArrayList<>(count);
+        for (Map<Object, Event> group : events.values()) {
+            batch.addAll(group.values());
+        }
+        eventBus.postAll(batch);
+        synchronized (this) {
+            deliveredCount += count;
+        }
+        return count;
+    }
+
+    /**
+     * Drops every pending event without posting it.
+     *
+     * @return the number of events that were dropped
+     */
+    public int clear() {
+        synchronized (this) {
+            int count = pendingCount;
+            pending = new LinkedHashMap<>();
+            pendingCount = 0;
+            return count;
+        }
+    }
+
+    /**
+     * Gets the number of events waiting for the next flush.
+     */
+    public int getPendingCount() {
+        synchronized (this) {
+            return pendingCount;
+        }
+    }
+
+    /**
+     * Gets the number of events that have been queued, including the ones that were merged.
+     */
+    public long getQueuedCount() {
+        synchronized (this) {
+            return queuedCount;
+        }
+    }
+
+    /**
+     * Gets the number of events that were merged into, or replaced, a pending event instead of being posted.
+     */
+    public long getMergedCount() {
+        synchronized (this) {
+            return mergedCount;
+        }
+    }
+
+    /**
+     * Gets the number of events that have been posted by flushing.
+     * The events of a flush that was cut short by a handler throwing are not counted.
+     */
+    public long getDeliveredCount() {
+        synchronized (this) {
+            return deliveredCount;
+        }
+    }
+
+}
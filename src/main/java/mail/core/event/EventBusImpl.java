@@ -3,67 +3,268 @@ package mail.core.event;
 import mail.api.event.Event;
 import mail.api.event.EventBus;
 import mail.api.event.EventPhase;
+import mail.api.game.Environment;
+import mail.core.jfr.FlightRecording;
 
-import java.util.ArrayDeque;
-import java.util.HashSet;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Queue;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
 
 public class EventBusImpl implements EventBus {
 
     private static final EventPhase[] ALL_PHASES = {EventPhase.CANCELLATION, EventPhase.PRE, EventPhase.DEFAULT, EventPhase.POST};
     private static final EventPhase[] MAIN_PHASES = {EventPhase.PRE, EventPhase.DEFAULT, EventPhase.POST};
 
-    private final Map<EventType, EventDispatcher> dispatchers = new IdentityHashMap<>();
-    private final Map<EventType, Set<EventDispatcher>> allDispatchers = new IdentityHashMap<>();
+    private static final ThreadLocal<ContextStack> CONTEXTS = ThreadLocal.withInitial(ContextStack::new);
 
-    private Set<EventDispatcher> computeDispatchers(EventType type) {
-        Set<EventDispatcher> set = allDispatchers.get(type);
-        if (set != null) return set;
+    // Events that aren't side-aware, side-aware events without a side, and then one table per side
+    private static final int SIDE_TABLES = 2 + Environment.Side.values().length;
 
-        EventDispatcher dispatcher = new EventDispatcher();
+    // Registration state is only touched while holding the lock, while posting only reads the published plans
+    private final Object lock = new Object();
+    // Hash maps only allocate their tables once something is added, which keeps idle child buses cheap.
+    // Concurrent, since posts read the dispatchers to rebuild outdated plans without taking the lock
+    private final Map<EventType, EventDispatcher> dispatchers = new ConcurrentHashMap<>();
+    private final Map<EventType, DispatchPlan> plans = new ConcurrentHashMap<>();
+    private final ReferenceQueue<Object> collectedListeners = new ReferenceQueue<>();
 
-        dispatchers.put(type, dispatcher);
-        allDispatchers.put(type, set = new HashSet<>());
+    private final Environment.Side side;
+    private final Executor asyncExecutor;
+    private final EventBusImpl parent;
+    private final boolean bubbles;
 
-        // Send events to supertypes
-        Queue<Class<? extends Event>> queue = new ArrayDeque<>();
-        queue.add(type.getClazz());
-        while (!queue.isEmpty()) {
-            Class<? extends Event> current = queue.poll();
-            EventType currentEventType = EventType.of(current);
+    // Only read while rebuilding plans, which wrap their subscribers to record into it while it's set
+    private volatile EventMetrics metrics;
+    // Same as the metrics, posts are only recorded into it by the plans rebuilt while it's set
+    private volatile EventTraceRecorder trace;
 
-            EventDispatcher currentDispatcher = dispatchers.get(currentEventType);
-            if (currentDispatcher != null) {
-                set.add(currentDispatcher);
+    public EventBusImpl() {
+        this(null, null);
+    }
+
+    /**
+     * Creates an event bus that runs asynchronous posts on the given executor.
+     * If null, they will run on virtual threads when available, or the common fork-join pool otherwise.
+     */
+    public EventBusImpl(Executor asyncExecutor) {
+        this(null, asyncExecutor);
+    }
+
+    /**
+     * Creates an event bus bound to the given side, which will ignore all the handlers that are only meant for the
+     * other one. If null, the bus will keep all handlers and pick them based on the side of each event.
+     */
+    public EventBusImpl(Environment.Side side) {
+        this(side, null);
+    }
+
+    public EventBusImpl(Environment.Side side, Executor asyncExecutor) {
+        this(side, asyncExecutor, null, false);
+    }
+
+    private EventBusImpl(Environment.Side side, Executor asyncExecutor, EventBusImpl parent, boolean bubbles) {
+        this.side = side;
+        this.asyncExecutor = asyncExecutor;
+        this.parent = parent;
+        this.bubbles = bubbles;
+    }
+
+    /**
+     * Creates a bus scoped to this one, with the same side and asynchronous executor.
+     * Child buses have their own listeners, but share all the event and handler metadata with every other bus, so
+     * creating one is almost free.
+     *
+     * @param bubbles whether events posted to the child should also be sent to this bus' listeners, phase by phase and
+     *                right after the child's own, sharing the same cancellation state and result
+     */
+    public EventBusImpl createChild(boolean bubbles) {
+        return new EventBusImpl(side, asyncExecutor, this, bubbles);
+    }
+
+    public EventBusImpl getParent() {
+        return parent;
+    }
+
+    /**
+     * Starts collecting dispatch metrics for the events posted to this bus, if it wasn't already.
+     * While metrics are disabled, posting doesn't pay anything for them.
+     *
+     * @return the metrics of this bus, which keep being updated until they are disabled
+     */
+    public EventMetrics enableMetrics() {
+        synchronized (lock) {
+            if (metrics == null) {
+                metrics = new EventMetrics();
+                invalidateAllPlans();
             }
+            return metrics;
+        }
+    }
 
-            for (Class<?> itf : current.getInterfaces()) {
-                if (Event.class.isAssignableFrom(itf)) {
-                    queue.add((Class<? extends Event>) itf);
-                }
+    /**
+     * Stops collecting dispatch metrics. The previously returned metrics are kept as they are.
+     */
+    public void disableMetrics() {
+        synchronized (lock) {
+            if (metrics != null) {
+                metrics = null;
+                invalidateAllPlans();
             }
+        }
+    }
 
-            Class<?> superclass = current.getSuperclass();
-            if (superclass != null && Event.class.isAssignableFrom(superclass)) {
-                queue.add((Class<? extends Event>) superclass);
+    /**
+     * Gets the dispatch metrics of this bus, or null if they aren't enabled.
+     */
+    public EventMetrics getMetrics() {
+        synchronized (lock) {
+            return metrics;
+        }
+    }
+
+    /**
+     * Starts recording the events posted to this bus into the given trace, replacing the one it was recorded into
+     * before. Events that bubble up from child buses are only recorded if those are traced too.
+     */
+    public void startTracing(EventTraceRecorder recorder) {
+        synchronized (lock) {
+            if (trace != recorder) {
+                trace = recorder;
+                invalidateAllPlans();
             }
         }
+    }
 
-        // Receive events from subtypes
-        for (EventType currentType : allDispatchers.keySet()) {
-            if (currentType != type && type.getClazz().isAssignableFrom(currentType.getClazz())) {
-                allDispatchers.get(currentType).add(dispatcher);
+    /**
+     * Stops recording events. The recorder is left open, so other buses can keep recording into it.
+     */
+    public void stopTracing() {
+        startTracing(null);
+    }
+
+    /**
+     * Gets the recorder the events posted to this bus are recorded into, or null if they aren't.
+     */
+    public EventTraceRecorder getTraceRecorder() {
+        synchronized (lock) {
+            return trace;
+        }
+    }
+
+    private void invalidateAllPlans() {
+        for (DispatchPlan plan : plans.values()) {
+            plan.version++;
+        }
+    }
+
+    private DispatchPlan computePlan(EventType type) {
+        DispatchPlan plan = plans.get(type);
+        if (plan != null) return plan;
+
+        // Look up the parent's plan first, so this bus' lock is never held while taking the parent's
+        DispatchPlan parentPlan = bubbles ? parent.computePlan(type) : null;
+        synchronized (lock) {
+            plan = plans.get(type);
+            if (plan != null) return plan;
+
+            plan = new DispatchPlan(this, type.getHierarchy(), parentPlan);
+            plan.rebuild();
+            plans.put(type, plan);
+            return plan;
+        }
+    }
+
+    /**
+     * Takes the snapshots of a plan and of the plans it bubbles up to, so a post isn't affected by concurrent
+     * registrations halfway through.
+     */
+    private static void takeSnapshots(DispatchPlan plan, EventContext context) {
+        context.hierarchy = plan.hierarchy;
+
+        Snapshot[] snapshots = context.snapshots;
+        int count = 0;
+        for (DispatchPlan current = plan; current != null; current = current.parent) {
+            if (count == snapshots.length) {
+                snapshots = context.snapshots = Arrays.copyOf(snapshots, count * 2);
             }
+            snapshots[count++] = current.getSnapshot();
         }
+        context.snapshotCount = count;
+    }
 
-        return set;
+    /**
+     * Counts a post into the metrics of the snapshot it started with. Only done once per post, and only for the bus the
+     * event was posted to, not the ones it bubbles up to.
+     */
+    private static void countPost(Snapshot snapshot) {
+        LongAdder posts = snapshot.posts;
+        if (posts != null) {
+            posts.increment();
+        }
+    }
+
+    private static void fire(EventPhase phase, Event event, EventContext context) throws Throwable {
+        context.phase = phase;
+        Snapshot[] snapshots = context.snapshots;
+        for (int i = 0; i < context.snapshotCount; i++) {
+            snapshots[i].fire(phase, event, context);
+        }
+    }
+
+    private void invalidatePlans(Set<EventType> changedTypes) {
+        // Only the plans of the changed types and their subtypes can be affected, so avoid looking at anything else.
+        // They are rebuilt the next time they are used, so many registrations in a row only cause a single rebuild.
+        for (EventType type : changedTypes) {
+            for (EventType subtype : type.getSubtypes()) {
+                DispatchPlan plan = plans.get(subtype);
+                if (plan != null) {
+                    plan.version++;
+                }
+            }
+        }
     }
 
     @Override
     public void register(Object listener) {
+        subscribe(listener, false);
+    }
+
+    /**
+     * Registers a listener like {@link #register(Object)}, returning a handle that can later be used to unregister it
+     * without having to look its handlers up again.
+     */
+    public Registration subscribe(Object listener) {
+        return subscribe(listener, false);
+    }
+
+    /**
+     * Registers a listener that will only be weakly referenced by this bus, so it stops receiving events and gets
+     * unregistered automatically once it is garbage collected.
+     * Classes registered this way are held strongly, like in {@link #register(Object)}.
+     */
+    public Registration registerWeak(Object listener) {
+        return subscribe(listener, !(listener instanceof Class));
+    }
+
+    private Registration subscribe(Object listener, boolean weak) {
         EventHandlerType handlerType;
         if (listener instanceof Class) {
             handlerType = EventHandlerType.of((Class<?>) listener, true);
@@ -71,11 +272,36 @@ public class EventBusImpl implements EventBus {
             handlerType = EventHandlerType.of(listener.getClass(), false);
         }
 
-        Set<EventHandlerType.EventHandler> handlers = handlerType.getHandlers();
-        for (EventHandlerType.EventHandler handler : handlers) {
-            computeDispatchers(handler.getEventType());
-            EventDispatcher dispatcher = dispatchers.get(handler.getEventType());
-            dispatcher.addHandler(handler, listener instanceof Class ? null : listener);
+        synchronized (lock) {
+            purgeCollectedListeners0();
+
+            ListenerReference reference = weak ? new ListenerReference(listener, collectedListeners) : null;
+            Set<EventType> changedTypes = Collections.newSetFromMap(new IdentityHashMap<>());
+            List<Subscriber> added = new ArrayList<>();
+            Set<EventHandlerType.EventHandler> handlers = handlerType.getHandlers();
+            for (EventHandlerType.EventHandler handler : handlers) {
+                if (side != null && handler.getSide() != null && handler.getSide() != side) continue;
+
+                Subscriber subscriber;
+                if (weak) {
+                    subscriber = new Subscriber(handler, reference, listener.hashCode());
+                } else {
+                    subscriber = new Subscriber(handler, listener instanceof Class ? null : listener);
+                }
+
+                EventDispatcher dispatcher = dispatchers.computeIfAbsent(handler.getEventType(), t -> new EventDispatcher());
+                if (dispatcher.add(subscriber)) {
+                    changedTypes.add(handler.getEventType());
+                    added.add(subscriber);
+                }
+            }
+            invalidatePlans(changedTypes);
+
+            Registration registration = new Registration(added.toArray(new Subscriber[0]));
+            if (weak) {
+                reference.registration = registration;
+            }
+            return registration;
         }
     }
 
@@ -88,70 +314,326 @@ public class EventBusImpl implements EventBus {
             handlerType = EventHandlerType.of(listener.getClass(), false);
         }
 
-        Set<EventHandlerType.EventHandler> handlers = handlerType.getHandlers();
-        for (EventHandlerType.EventHandler handler : handlers) {
-            computeDispatchers(handler.getEventType());
-            EventDispatcher dispatcher = dispatchers.get(handler.getEventType());
-            dispatcher.removeHandler(handler, listener instanceof Class ? null : listener);
+        synchronized (lock) {
+            purgeCollectedListeners0();
+
+            Set<EventType> changedTypes = Collections.newSetFromMap(new IdentityHashMap<>());
+            Set<EventHandlerType.EventHandler> handlers = handlerType.getHandlers();
+            for (EventHandlerType.EventHandler handler : handlers) {
+                EventDispatcher dispatcher = dispatchers.get(handler.getEventType());
+                // Subscribers are equal if they have the same handler and target, even if one of them is weak
+                Subscriber subscriber = new Subscriber(handler, listener instanceof Class ? null : listener);
+                if (dispatcher != null && dispatcher.remove(subscriber)) {
+                    changedTypes.add(handler.getEventType());
+                }
+            }
+            invalidatePlans(changedTypes);
         }
     }
 
-    private void post(Event event, EventContext context) {
-        Set<EventDispatcher> dispatchers = computeDispatchers(EventType.of(event.getClass()));
-        try {
-            for (EventPhase phase : (event instanceof Event.Cancelable ? ALL_PHASES : MAIN_PHASES)) {
-                context.phase = phase;
-                for (EventDispatcher dispatcher : dispatchers) {
-                    dispatcher.fire(event, context);
+    /**
+     * Unregisters all the given registrations at once, so each affected dispatch plan only gets rebuilt a single time.
+     */
+    public void unregisterAll(Collection<Registration> registrations) throws IllegalStateException {
+        synchronized (lock) {
+            // Nothing is removed unless all of them can be, so a bad registration can't leave stale plans behind
+            for (Registration registration : registrations) {
+                if (registration.getEventBus() != this) {
+                    throw new IllegalStateException("Attempting to unregister a listener from a bus it was not registered to. "
+                            + "Offender: " + registration);
                 }
             }
+
+            Set<EventType> changedTypes = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Registration registration : registrations) {
+                registration.remove(changedTypes);
+            }
+            invalidatePlans(changedTypes);
+        }
+    }
+
+    /**
+     * Removes all the weakly registered listeners that have been garbage collected since the last purge.
+     * This also happens automatically whenever a listener is registered or unregistered.
+     */
+    public void purgeCollectedListeners() {
+        synchronized (lock) {
+            purgeCollectedListeners0();
+        }
+    }
+
+    private void purgeCollectedListeners0() {
+        Set<EventType> changedTypes = Collections.newSetFromMap(new IdentityHashMap<>());
+        ListenerReference reference;
+        while ((reference = (ListenerReference) collectedListeners.poll()) != null) {
+            // The registration is only missing if the listener was collected while it was still being registered
+            if (reference.registration != null) {
+                reference.registration.remove(changedTypes);
+            }
+        }
+        invalidatePlans(changedTypes);
+    }
+
+    /**
+     * Posts an event along the given plan with a context from the thread's pool, returning its result if asked to.
+     */
+    private static Object post(DispatchPlan plan, Event event, boolean returnResult) {
+        ContextStack contexts = CONTEXTS.get();
+        EventContext context = contexts.push();
+        try {
+            if (event instanceof Event.WithResult<?>) {
+                context.result = ((Event.WithResult) event).getDefaultResult();
+            }
+
+            post(plan, event, context);
+
+            return returnResult ? context.getResult() : null;
+        } finally {
+            contexts.pop(context);
+        }
+    }
+
+    private static void post(DispatchPlan plan, Event event, EventContext context) {
+        try {
+            takeSnapshots(plan, context);
+            countPost(context.snapshots[0]);
+            EventPhase[] phases = event instanceof Event.Cancelable ? ALL_PHASES : MAIN_PHASES;
+            EventTraceRecorder trace = context.snapshots[0].trace;
+            if (isRecorded(trace)) {
+                postRecorded(event, context, phases, trace);
+                return;
+            }
+            for (EventPhase phase : phases) {
+                fire(phase, event, context);
+            }
         } catch (Throwable t) {
             throw new IllegalStateException("There was an exception trying to post an event.", t);
         }
     }
 
-    @Override
-    public <T extends Event> T post(T event) {
-        EventContext context = new EventContext();
-        if (event instanceof Event.WithResult<?>) {
-            context.result = ((Event.WithResult) event).getDefaultResult();
-        }
+    /**
+     * Whether posts need to go through {@link #postRecorded}, because the bus is traced or a flight recording wants
+     * events for them or their subscribers.
+     */
+    private static boolean isRecorded(EventTraceRecorder trace) {
+        return trace != null || FlightRecording.isPostEnabled() || FlightRecording.isSubscriberEnabled();
+    }
 
-        post(event, context);
+    /**
+     * Posts an event while a flight recording is running or the bus is traced, emitting events for the post and its
+     * slow subscribers and recording it into the trace.
+     */
+    private static void postRecorded(Event event, EventContext context, EventPhase[] phases, EventTraceRecorder trace)
+            throws Throwable {
+        Object post = FlightRecording.isPostEnabled() ? FlightRecording.beginPost() : null;
+        long start = trace != null ? trace.beginPost() : 0;
+        context.traced = true;
+        context.traceSubscribers = FlightRecording.isSubscriberEnabled();
+        context.trace = trace;
+        try {
+            for (EventPhase phase : phases) {
+                fire(phase, event, context);
+            }
+        } finally {
+            // Failed posts are recorded too, or the handlers that did run would be attributed to the wrong post
+            if (trace != null) {
+                trace.recordPost(event.getClass(), start, EventTraceRecorder.phaseMask(phases), context.handlers,
+                        context.canceled);
+            }
+        }
+        if (post != null) {
+            FlightRecording.commitPost(post, event.getClass(), phases.length, context.handlers, context.canceled);
+        }
+    }
 
+    @Override
+    public <T extends Event> T post(T event) {
+        post(computePlan(EventType.of(event.getClass())), event, false);
         return event;
     }
 
     @Override
     public <T> T post(Event.WithResult<T> event) {
-        EventContext context = new EventContext();
-        context.result = event.getDefaultResult();
+        return (T) post(computePlan(EventType.of(event.getClass())), event, true);
+    }
 
-        post(event, context);
+    /**
+     * Posts all the given events. Events of the same class share a single dispatch lookup and go through each phase
+     * together, but every event still goes through its phases in order and keeps its own result and cancellation state.
+     */
+    public void postAll(Collection<? extends Event> events) {
+        postAll(events.toArray(new Event[0]), null);
+    }
+
+    /**
+     * Posts all the given events.
+     *
+     * @see #postAll(Collection)
+     */
+    public void postAll(Event... events) {
+        postAll(events, null);
+    }
 
-        return (T) context.result;
+    /**
+     * Posts all the given events, returning their results in the same order.
+     *
+     * @see #postAll(Collection)
+     */
+    public <T> List<T> postAllWithResults(List<? extends Event.WithResult<T>> events) {
+        Object[] results = new Object[events.size()];
+        postAll(events.toArray(new Event[0]), results);
+        return (List<T>) Arrays.asList(results);
+    }
+
+    private void postAll(Event[] events, Object[] results) {
+        // Group the events by class, keeping track of where they were so results can be put back in order
+        Map<Class<?>, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < events.length; i++) {
+            groups.computeIfAbsent(events[i].getClass(), c -> new ArrayList<>()).add(i);
+        }
+
+        ContextStack contexts = CONTEXTS.get();
+        for (List<Integer> group : groups.values()) {
+            Event[] batch = new Event[group.size()];
+            for (int i = 0; i < batch.length; i++) {
+                batch[i] = events[group.get(i)];
+            }
+
+            DispatchPlan plan = computePlan(EventType.of(batch[0].getClass()));
+            EventContext[] batchContexts = new EventContext[batch.length];
+            try {
+                for (int i = 0; i < batch.length; i++) {
+                    EventContext context = batchContexts[i] = contexts.push();
+                    takeSnapshots(plan, context);
+                    countPost(context.snapshots[0]);
+                    if (batch[i] instanceof Event.WithResult<?>) {
+                        context.result = ((Event.WithResult) batch[i]).getDefaultResult();
+                    }
+                }
+
+                EventPhase[] phases = batch[0] instanceof Event.Cancelable ? ALL_PHASES : MAIN_PHASES;
+                EventTraceRecorder trace = batchContexts[0].snapshots[0].trace;
+                if (isRecorded(trace)) {
+                    // Recorded posts are timed one at a time, so the batch goes through its phases event by event
+                    for (int i = 0; i < batch.length; i++) {
+                        postRecorded(batch[i], batchContexts[i], phases, trace);
+                    }
+                } else {
+                    for (EventPhase phase : phases) {
+                        for (int i = 0; i < batch.length; i++) {
+                            fire(phase, batch[i], batchContexts[i]);
+                        }
+                    }
+                }
+
+                if (results != null) {
+                    for (int i = 0; i < batch.length; i++) {
+                        results[group.get(i)] = batchContexts[i].getResult();
+                    }
+                }
+            } catch (Throwable t) {
+                throw new IllegalStateException("There was an exception trying to post an event.", t);
+            } finally {
+                for (int i = batchContexts.length - 1; i >= 0; i--) {
+                    if (batchContexts[i] != null) {
+                        contexts.pop(batchContexts[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates a queue that posts events to this bus when it's flushed, only keeping the last event queued under each
+     * key.
+     */
+    public CoalescingEventQueue createCoalescingQueue() {
+        return new CoalescingEventQueue(this);
+    }
+
+    /**
+     * Posts an event on this bus' asynchronous executor, going through all of its phases there.
+     */
+    public <T extends Event> CompletableFuture<T> postAsync(T event) {
+        return CompletableFuture.supplyAsync(() -> post(event), getAsyncExecutor());
+    }
+
+    /**
+     * Posts an event on this bus' asynchronous executor, going through all of its phases there.
+     * The future is completed with the final result once all the handlers have run.
+     */
+    public <T> CompletableFuture<T> postAsync(Event.WithResult<T> event) {
+        return CompletableFuture.supplyAsync(() -> post(event), getAsyncExecutor());
+    }
+
+    private Executor getAsyncExecutor() {
+        return asyncExecutor != null ? asyncExecutor : DefaultExecutor.INSTANCE;
+    }
+
+    /**
+     * Checks whether any handlers would receive an event of the given type, so callers can avoid building events
+     * nobody listens to. This is a single lookup per bus once the type has been seen.
+     */
+    public boolean hasListeners(Class<? extends Event> type) {
+        return computePlan(EventType.of(type)).hasListeners();
     }
 
     @Override
     public PostedEvent postManually(Event event) {
-        return new PostedEventImpl(event);
+        PostedEventImpl posted = new PostedEventImpl(computePlan(EventType.of(event.getClass())));
+        posted.start(event);
+        return posted;
     }
 
     @Override
     public <T> PostedEvent.WithResult<T> postManually(Event.WithResult<T> event) {
-        return new PostedEventWithResult<>(event);
+        PostedEventWithResult<T> posted = new PostedEventWithResult<>(computePlan(EventType.of(event.getClass())));
+        posted.start(event);
+        return posted;
+    }
+
+    /**
+     * Prepares to post events of the given class, resolving everything that doesn't depend on the event itself once,
+     * so events of that class can be posted in a loop without paying for it every time. The prepared event stays
+     * valid as listeners are registered and unregistered.
+     */
+    public <T extends Event> PreparedEvent<T> prepare(Class<T> type) {
+        return new PreparedEvent<>(type, computePlan(EventType.of(type)));
     }
 
     private class PostedEventImpl implements PostedEvent {
 
-        private final Event event;
+        private Event event;
         protected final EventContext context = new EventContext();
-        private final Set<EventDispatcher> dispatchers;
+        private final DispatchPlan plan;
+        // Set once a phase is fired while the bus is traced or a flight recording is running, in which case the post
+        // is recorded after its POST phase
+        private boolean recorded;
+        private EventTraceRecorder trace;
+        private long traceStart;
+        private Object flightPost;
+        private int recordedPhases;
+
+        private PostedEventImpl(DispatchPlan plan) {
+            this.plan = plan;
+        }
 
-        private PostedEventImpl(Event event) {
+        /**
+         * Starts posting the given event, forgetting about the one that was being posted before if there was one.
+         */
+        void start(Event event) {
             this.event = event;
-            this.dispatchers = computeDispatchers(EventType.of(event.getClass()));
+            context.reset();
+            recorded = false;
+            trace = null;
+            flightPost = null;
+            recordedPhases = 0;
+            // Each phase takes the snapshots again, so the post is counted up front instead
+            countPost(plan.getSnapshot());
 
+            if (event instanceof Event.WithResult<?>) {
+                context.result = ((Event.WithResult) event).getDefaultResult();
+            }
             if (event instanceof Event.Cancelable) {
                 fire(EventPhase.CANCELLATION);
             }
@@ -164,7 +646,7 @@ public class EventBusImpl implements EventBus {
 
         @Override
         public boolean hasListeners() {
-            return true; // TODO: Actually check dispatchers for listeners
+            return plan.hasListeners();
         }
 
         @Override
@@ -187,74 +669,1147 @@ public class EventBusImpl implements EventBus {
                 throw new IllegalStateException("Tried to transition event from " + context.phase + " to " + phase);
             }
 
-            context.phase = phase;
             try {
-                for (EventDispatcher dispatcher : dispatchers) {
-                    dispatcher.fire(event, context);
+                takeSnapshots(plan, context);
+                if (!recorded) {
+                    EventTraceRecorder trace = context.snapshots[0].trace;
+                    if (isRecorded(trace)) {
+                        recorded = true;
+                        this.trace = trace;
+                        traceStart = trace != null ? trace.beginPost() : 0;
+                        flightPost = FlightRecording.isPostEnabled() ? FlightRecording.beginPost() : null;
+                    }
+                } else if (trace != null) {
+                    trace.beginPost();
+                }
+                if (recorded) {
+                    fireRecorded(phase);
+                } else {
+                    EventBusImpl.fire(phase, event, context);
                 }
             } catch (Throwable t) {
                 throw new IllegalStateException("There was an exception trying to post an event.", t);
             }
         }
 
+        private void fireRecorded(EventPhase phase) throws Throwable {
+            context.traced = true;
+            context.traceSubscribers = FlightRecording.isSubscriberEnabled();
+            context.trace = trace;
+            try {
+                EventBusImpl.fire(phase, event, context);
+            } finally {
+                recordedPhases |= EventTraceRecorder.phaseMask(phase);
+                if (trace != null) {
+                    if (phase == EventPhase.POST) {
+                        trace.recordPost(event.getClass(), traceStart, recordedPhases, context.handlers, context.canceled);
+                    } else {
+                        trace.suspendPost();
+                    }
+                }
+            }
+            if (phase == EventPhase.POST && flightPost != null) {
+                FlightRecording.commitPost(flightPost, event.getClass(), Integer.bitCount(recordedPhases),
+                        context.handlers, context.canceled);
+            }
+        }
+
     }
 
     private final class PostedEventWithResult<T> extends PostedEventImpl implements PostedEvent.WithResult<T> {
 
-        private PostedEventWithResult(Event.WithResult<T> event) {
-            super(event);
-            context.result = event.getDefaultResult();
+        private PostedEventWithResult(DispatchPlan plan) {
+            super(plan);
         }
 
         @Override
         public T getResult() {
-            return (T) context.result;
+            return (T) context.getResult();
+        }
+
+    }
+
+    /**
+     * Events of a single class ready to be posted, with their plan already looked up. Much like a prepared statement,
+     * it can be kept around and used for as many posts as needed.
+     * Registrations invalidate the plan's snapshot, which is rebuilt the next time it's posted to, so there's nothing
+     * to check before reusing it.
+     */
+    public final class PreparedEvent<T extends Event> {
+
+        private final Class<T> type;
+        private final DispatchPlan plan;
+        // Reused by every staged post, so only one of them can be in progress at a time
+        private PostedEventWithResult<?> staged;
+
+        private PreparedEvent(Class<T> type, DispatchPlan plan) {
+            this.type = type;
+            this.plan = plan;
+        }
+
+        public EventBusImpl getEventBus() {
+            return EventBusImpl.this;
+        }
+
+        public Class<T> getEventClass() {
+            return type;
+        }
+
+        /**
+         * Whether anything listens to events of this class, on this bus or the ones they bubble up to.
+         */
+        public boolean hasListeners() {
+            return plan.hasListeners();
+        }
+
+        /**
+         * Posts an event through all of its phases.
+         *
+         * @see EventBusImpl#post(Event)
+         */
+        public T post(T event) {
+            checkClass(event);
+            EventBusImpl.post(plan, event, false);
+            return event;
+        }
+
+        /**
+         * Posts an event through all of its phases and returns its result.
+         *
+         * @param <R> the result type of the event, which can't be checked when the prepared class is generic
+         * @see EventBusImpl#post(Event.WithResult)
+         */
+        public <R> R postForResult(T event) {
+            checkClass(event);
+            if (!(event instanceof Event.WithResult<?>)) {
+                throw new IllegalStateException("Only events with results can be posted for them. "
+                        + "Offender: " + type.getName());
+            }
+            return (R) EventBusImpl.post(plan, event, true);
+        }
+
+        /**
+         * Starts posting an event one phase at a time, like {@link EventBusImpl#postManually(Event)}, but reusing the
+         * same context for every event. Staging another event abandons the one that was being posted.
+         * The returned object is only valid until the next event is staged.
+         *
+         * @param <R> the result type of the event, if it has one
+         */
+        public <R> PostedEvent.WithResult<R> stage(T event) {
+            checkClass(event);
+            if (staged == null) {
+                staged = new PostedEventWithResult<>(plan);
+            }
+            staged.start(event);
+            return (PostedEvent.WithResult<R>) staged;
+        }
+
+        private void checkClass(Event event) {
+            // The plan only covers the exact class it was prepared for, not its subclasses
+            if (event.getClass() != type) {
+                throw new IllegalStateException("Prepared events can only post events of the class they were "
+                        + "prepared for. Offender: " + event.getClass().getName() + " (expected " + type.getName() + ")");
+            }
         }
 
     }
 
-    private final class EventContext {
+    private static int getSideTable(Event event) {
+        if (!(event instanceof Event.SideAware)) return 0;
+
+        Environment.Side side = ((Event.SideAware) event).getEventSide();
+        return side == null ? 1 : 2 + side.ordinal();
+    }
+
+    private static boolean isInSideTable(int table, Environment.Side handlerSide) {
+        return table == 0 || handlerSide == null || table == 2 + handlerSide.ordinal();
+    }
+
+    /**
+     * Lazily creates the executor shared by all the buses that weren't given one.
+     */
+    private static final class DefaultExecutor {
+
+        private static final Executor INSTANCE = create();
+
+        private static Executor create() {
+            // Virtual threads are only available on newer JVMs, so look them up reflectively
+            try {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (Executor) factory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                return ForkJoinPool.commonPool();
+            }
+        }
+
+    }
+
+    private static final class EventContext {
 
         private EventPhase phase;
         private boolean canceled = false;
         private Object result;
-        private Map<EventType.Property, Object> propertyMap = new IdentityHashMap<>(); // TODO: Check memory implications
+
+        // While the snapshots being fired agree on a primitive result type, the result is kept unboxed in the field of
+        // its kind instead, so chaining it through the handlers doesn't box it every time
+        private Class<?> primitiveType;
+        private EventHandlerType.ResultKind resultKind;
+        private boolean booleanResult;
+        private int intResult;
+        private long longResult;
+        private double doubleResult;
+
+        // Cached values of the immutable properties of each type in the posted event's hierarchy, indexed by the
+        // position of the type in the hierarchy and then by property slot. Only filled in when a handler unpacks them.
+        private EventType[] hierarchy;
+        private Object[][] properties = new Object[0][];
+        private int usedProperties = 0;
+
+        // The snapshots of the bus the event was posted to and of the ones it bubbles up to
+        private Snapshot[] snapshots = new Snapshot[1];
+        private int snapshotCount = 0;
+
+        // Only set while a flight recording is running, in which case handlers are counted and optionally timed
+        private boolean traced = false;
+        private boolean traceSubscribers = false;
+        private int handlers = 0;
+        // Only set while the bus the event was posted to is traced, in which case every handler is timed
+        private EventTraceRecorder trace;
+
+        private Object[] getProperties(int source) {
+            if (properties.length <= source) {
+                properties = Arrays.copyOf(properties, hierarchy.length);
+            }
+            Object[] values = properties[source];
+            int size = hierarchy[source].getPropertyCount();
+            if (values == null || values.length < size) {
+                values = properties[source] = new Object[size];
+            }
+            usedProperties = Math.max(usedProperties, source + 1);
+            return values;
+        }
+
+        private Object getResult() {
+            useResultType(null);
+            return result;
+        }
+
+        /**
+         * Switches the result to be kept unboxed as the given primitive type, or boxed if it's null. Results that
+         * aren't of the boxed type, such as a null default result, are kept boxed.
+         */
+        private void useResultType(Class<?> type) {
+            if (type == primitiveType) return;
+
+            if (resultKind != null) {
+                result = boxResult();
+            }
+            primitiveType = null;
+            resultKind = null;
+
+            if (type != null && unboxResult(type)) {
+                primitiveType = type;
+                resultKind = EventHandlerType.ResultKind.of(type);
+            }
+        }
+
+        private boolean unboxResult(Class<?> type) {
+            Object result = this.result;
+            if (type == Integer.TYPE && result instanceof Integer) {
+                intResult = (Integer) result;
+            } else if (type == Float.TYPE && result instanceof Float) {
+                doubleResult = (Float) result;
+            } else if (type == Double.TYPE && result instanceof Double) {
+                doubleResult = (Double) result;
+            } else if (type == Long.TYPE && result instanceof Long) {
+                longResult = (Long) result;
+            } else if (type == Boolean.TYPE && result instanceof Boolean) {
+                booleanResult = (Boolean) result;
+            } else if (type == Short.TYPE && result instanceof Short) {
+                intResult = (Short) result;
+            } else if (type == Byte.TYPE && result instanceof Byte) {
+                intResult = (Byte) result;
+            } else if (type == Character.TYPE && result instanceof Character) {
+                intResult = (Character) result;
+            } else {
+                return false;
+            }
+            return true;
+        }
+
+        private Object boxResult() {
+            Class<?> type = primitiveType;
+            if (type == Integer.TYPE) return intResult;
+            if (type == Float.TYPE) return (float) doubleResult;
+            if (type == Double.TYPE) return doubleResult;
+            if (type == Long.TYPE) return longResult;
+            if (type == Boolean.TYPE) return booleanResult;
+            if (type == Short.TYPE) return (short) intResult;
+            if (type == Byte.TYPE) return (byte) intResult;
+            return (char) intResult;
+        }
+
+        private void reset() {
+            phase = null;
+            canceled = false;
+            result = null;
+            primitiveType = null;
+            resultKind = null;
+            hierarchy = null;
+            Arrays.fill(snapshots, 0, snapshotCount, null);
+            snapshotCount = 0;
+            traced = false;
+            traceSubscribers = false;
+            handlers = 0;
+            trace = null;
+            for (int i = 0; i < usedProperties; i++) {
+                if (properties[i] != null) {
+                    Arrays.fill(properties[i], null);
+                }
+            }
+            usedProperties = 0;
+        }
+
+    }
+
+    /**
+     * Per-thread pool of contexts used by {@link #post(Event)}, so posting doesn't need to allocate one every time.
+     * Handlers may post other events while they run, so every nesting level gets its own context.
+     */
+    private static final class ContextStack {
+
+        private EventContext[] contexts = new EventContext[4];
+        private int depth = 0;
+
+        private EventContext push() {
+            if (depth == contexts.length) {
+                contexts = Arrays.copyOf(contexts, depth * 2);
+            }
+            EventContext context = contexts[depth];
+            if (context == null) {
+                context = contexts[depth] = new EventContext();
+            }
+            depth++;
+            return context;
+        }
+
+        private void pop(EventContext context) {
+            context.reset();
+            depth--;
+        }
+
+    }
+
+    /**
+     * A handle to the handlers added by a single registration, which can remove exactly those handlers without having
+     * to look them up again.
+     */
+    public final class Registration implements AutoCloseable {
+
+        private final Subscriber[] subscribers;
+        private boolean active = true;
+
+        private Registration(Subscriber[] subscribers) {
+            this.subscribers = subscribers;
+        }
+
+        public EventBusImpl getEventBus() {
+            return EventBusImpl.this;
+        }
+
+        /**
+         * Whether this registration's handlers are still registered, meaning it hasn't been closed and none of them
+         * have been unregistered some other way.
+         */
+        public boolean isActive() {
+            synchronized (lock) {
+                if (!active) return false;
+                for (Subscriber subscriber : subscribers) {
+                    EventDispatcher dispatcher = dispatchers.get(subscriber.handler.getEventType());
+                    if (dispatcher == null || !dispatcher.contains(subscriber)) return false;
+                }
+                return true;
+            }
+        }
+
+        /**
+         * Unregisters this registration's handlers. Does nothing if it has already been closed.
+         */
+        @Override
+        public void close() {
+            synchronized (lock) {
+                Set<EventType> changedTypes = Collections.newSetFromMap(new IdentityHashMap<>());
+                remove(changedTypes);
+                invalidatePlans(changedTypes);
+            }
+        }
+
+        private void remove(Set<EventType> changedTypes) {
+            if (!active) return;
+            active = false;
+
+            for (Subscriber subscriber : subscribers) {
+                EventDispatcher dispatcher = dispatchers.get(subscriber.handler.getEventType());
+                // Only remove this exact subscriber, in case the listener was unregistered and registered again
+                if (dispatcher != null && dispatcher.removeExact(subscriber)) {
+                    changedTypes.add(subscriber.handler.getEventType());
+                }
+            }
+        }
 
     }
 
+    /**
+     * Holds the handlers registered directly for a single event type, in registration order.
+     */
     private static final class EventDispatcher {
 
-        private final Map<EventHandlerType.EventHandler, Set<Object>> handlers = new IdentityHashMap<>();
+        // Maps every subscriber to itself, so the exact instance that was registered can be found.
+        // Only used while holding the lock, and recreated along with the view, as hash tables never shrink
+        private Map<Subscriber, Subscriber> subscribers = new LinkedHashMap<>();
+        // What posts read to rebuild plans without the lock, in registration order
+        private volatile View view = View.EMPTY;
+
+        private boolean add(Subscriber subscriber) {
+            if (subscribers.putIfAbsent(subscriber, subscriber) != null) return false;
+
+            View view = this.view;
+            Subscriber[] order = view.order;
+            if (view.size == order.length) {
+                order = Arrays.copyOf(order, Math.max(8, order.length * 2));
+            }
+            // Slots past the published size aren't read by anyone, so they can be filled in place
+            subscriber.slot = view.size;
+            order[view.size] = subscriber;
+            this.view = new View(order, view.size + 1, view.count + 1);
+            return true;
+        }
+
+        private boolean remove(Subscriber subscriber) {
+            Subscriber removed = subscribers.remove(subscriber);
+            if (removed == null) return false;
+
+            unpublish(removed);
+            return true;
+        }
 
-        private void addHandler(EventHandlerType.EventHandler handler, Object target) {
-            Set<Object> targets = handlers.computeIfAbsent(handler, k -> new HashSet<>());
-            targets.add(target);
+        private boolean removeExact(Subscriber subscriber) {
+            if (subscribers.get(subscriber) != subscriber) return false;
+            subscribers.remove(subscriber);
+            unpublish(subscriber);
+            return true;
         }
 
-        private void removeHandler(EventHandlerType.EventHandler handler, Object target) {
-            Set<Object> targets = handlers.get(handler);
-            if (targets == null) return;
+        private void unpublish(Subscriber subscriber) {
+            View view = this.view;
+            // A post rebuilding a plan concurrently may still see it, but its plan is outdated by the removal anyway
+            view.order[subscriber.slot] = null;
+            int count = view.count - 1;
+            if (count >= view.size / 2) {
+                this.view = new View(view.order, view.size, count);
+                return;
+            }
 
-            targets.remove(target);
-            if (targets.isEmpty()) {
-                handlers.remove(handler);
+            // Once most of the slots are empty, compact them and start over with a map sized for what's left, so a
+            // burst of listeners that are later purged doesn't keep their tables around
+            Subscriber[] order = new Subscriber[Math.max(8, count * 2)];
+            int size = 0;
+            for (int i = 0; i < view.size; i++) {
+                Subscriber remaining = view.order[i];
+                if (remaining != null) {
+                    remaining.slot = size;
+                    order[size++] = remaining;
+                }
             }
+            this.view = count == 0 ? View.EMPTY : new View(order, size, count);
+            subscribers = new LinkedHashMap<>(subscribers);
+        }
+
+        private boolean contains(Subscriber subscriber) {
+            return subscribers.get(subscriber) == subscriber;
         }
 
-        private void fire(Event event, EventBusImpl.EventContext context) throws Throwable {
-            for (Map.Entry<EventHandlerType.EventHandler, Set<Object>> entry : handlers.entrySet()) {
-                if (entry.getKey().getPhase() != context.phase) continue;
-                for (Object target : entry.getValue()) {
-                    Object prevResult = context.phase == EventPhase.CANCELLATION ? context.canceled : context.result;
-                    boolean canceled = context.phase != EventPhase.CANCELLATION && context.canceled;
-                    Object result = entry.getKey().fire(target, event, prevResult, canceled, context.propertyMap);
-                    if (context.phase == EventPhase.CANCELLATION) {
-                        context.canceled = (boolean) result;
+        private View getView() {
+            return view;
+        }
+
+        /**
+         * The subscribers of a dispatcher at a point in time, with the removed ones left as nulls until they are
+         * compacted away.
+         */
+        private static final class View {
+
+            private static final View EMPTY = new View(new Subscriber[0], 0, 0);
+
+            private final Subscriber[] order;
+            private final int size;
+            private final int count;
+
+            private View(Subscriber[] order, int size, int count) {
+                this.order = order;
+                this.size = size;
+                this.count = count;
+            }
+
+        }
+
+    }
+
+    /**
+     * Weak reference to a listener registered through {@link #registerWeak(Object)}, which keeps track of the
+     * registration that needs to be removed once it gets collected.
+     */
+    private static final class ListenerReference extends WeakReference<Object> {
+
+        private Registration registration;
+
+        private ListenerReference(Object listener, ReferenceQueue<Object> queue) {
+            super(listener, queue);
+        }
+
+    }
+
+    /**
+     * The flattened list of subscribers, split by phase, that an event of a concrete type is sent to.
+     * Includes the subscribers of all of the type's supertypes and is rebuilt whenever any of them change.
+     * The hierarchy is shared by the plans of every bus, and events bubble up to the parent bus' plan if there is one.
+     */
+    private static final class DispatchPlan {
+
+        private static final AtomicReferenceFieldUpdater<DispatchPlan, Snapshot> SNAPSHOT =
+                AtomicReferenceFieldUpdater.newUpdater(DispatchPlan.class, Snapshot.class, "snapshot");
+
+        private final EventBusImpl bus;
+        private final EventType[] hierarchy;
+        private final DispatchPlan parent;
+        // Bumped by the bus while holding the lock whenever a registration affects this plan
+        private volatile int version;
+        private volatile Snapshot snapshot;
+
+        private DispatchPlan(EventBusImpl bus, EventType[] hierarchy, DispatchPlan parent) {
+            this.bus = bus;
+            this.hierarchy = hierarchy;
+            this.parent = parent;
+        }
+
+        private boolean hasListeners() {
+            for (DispatchPlan plan = this; plan != null; plan = plan.parent) {
+                if (plan.getSnapshot().hasListeners()) return true;
+            }
+            return false;
+        }
+
+        /**
+         * Gets the current snapshot of this plan, rebuilding it first if registrations have changed since it was taken.
+         * Registrations only bump the plan's version, so many of them in a row only cause a single rebuild, and posts
+         * rebuild it from the dispatchers' views without ever taking the bus' lock.
+         */
+        private Snapshot getSnapshot() {
+            Snapshot snapshot = this.snapshot;
+            return snapshot.version == version ? snapshot : rebuild();
+        }
+
+        /**
+         * Builds a snapshot of the current registrations and publishes it, unless a concurrent rebuild already
+         * published a newer one.
+         */
+        private Snapshot rebuild() {
+            // Read before the registrations, so a change made halfway through leaves the snapshot outdated
+            int version = this.version;
+            Snapshot rebuilt = build(version);
+            Snapshot current;
+            do {
+                current = snapshot;
+                if (current != null && current.version - version >= 0) return current;
+            } while (!SNAPSHOT.compareAndSet(this, current, rebuilt));
+            return rebuilt;
+        }
+
+        private Snapshot build(int version) {
+            EventMetrics metrics = bus.metrics;
+            EventTraceRecorder trace = bus.trace;
+            EventDispatcher.View[] views = new EventDispatcher.View[hierarchy.length];
+            boolean empty = true;
+            for (int i = 0; i < hierarchy.length; i++) {
+                EventDispatcher dispatcher = bus.dispatchers.get(hierarchy[i]);
+                views[i] = dispatcher != null ? dispatcher.getView() : EventDispatcher.View.EMPTY;
+                empty &= views[i].count == 0;
+            }
+            // Posts without listeners are still part of a trace
+            if (empty && metrics == null && trace == null) {
+                return new Snapshot(DispatchTable.EMPTY, null, null, null, version);
+            }
+
+            int phaseCount = EventPhase.values().length;
+            Class<?> clazz = hierarchy[0].getClazz();
+            boolean generic = Event.Generic.class.isAssignableFrom(clazz);
+            // Handlers can only run concurrently if they don't need to see each other's results or cancellation
+            boolean parallel = !Event.WithResult.class.isAssignableFrom(clazz)
+                    && !Event.Cancelable.class.isAssignableFrom(clazz);
+            DispatchTable.Builder[][] builders = new DispatchTable.Builder[SIDE_TABLES][phaseCount];
+            for (DispatchTable.Builder[] tables : builders) {
+                for (int i = 0; i < phaseCount; i++) {
+                    // Cancellation handlers always run, so there's no need to split those
+                    tables[i] = new DispatchTable.Builder(hierarchy, generic, parallel,
+                            i != EventPhase.CANCELLATION.ordinal());
+                }
+            }
+            // Results are only chained unboxed if every handler that deals with them agrees on their primitive type
+            Class<?> resultType = null;
+            boolean boxedResults = false;
+            for (int source = 0; source < hierarchy.length; source++) {
+                EventDispatcher.View view = views[source];
+                for (int i = 0; i < view.size; i++) {
+                    Subscriber subscriber = view.order[i];
+                    if (subscriber == null) continue;
+
+                    Class<?> handlerResult = subscriber.handler.getResultType();
+                    if (handlerResult != null) {
+                        boxedResults |= !handlerResult.isPrimitive() || resultType != null && resultType != handlerResult;
+                        resultType = handlerResult;
+                    }
+
+                    if (metrics != null) {
+                        subscriber = new MeteredSubscriber(subscriber, metrics.getHandlerCounters(subscriber.handler));
+                    }
+
+                    int phase = subscriber.handler.getPhase().ordinal();
+                    for (int table = 0; table < SIDE_TABLES; table++) {
+                        if (isInSideTable(table, subscriber.handler.getSide())) {
+                            builders[table][phase].add(subscriber, source);
+                        }
+                    }
+                }
+            }
+
+            DispatchTable[][] tables = new DispatchTable[SIDE_TABLES][phaseCount];
+            for (int table = 0; table < SIDE_TABLES; table++) {
+                for (int i = 0; i < phaseCount; i++) {
+                    tables[table][i] = builders[table][i].build();
+                }
+            }
+            return new Snapshot(tables, metrics != null ? metrics.getPostCounter(hierarchy[0]) : null,
+                    trace, boxedResults ? null : resultType, version);
+        }
+
+    }
+
+    /**
+     * Immutable view of a {@link DispatchPlan} at a point in time, so it can be read without locking.
+     * Subscribers are split into tables by the side of the event they can receive and then by phase.
+     */
+    private static final class Snapshot {
+
+        private final DispatchTable[][] tables;
+        // Only set while metrics are enabled
+        private final LongAdder posts;
+        // Only set while the bus is traced
+        private final EventTraceRecorder trace;
+        // The primitive type every handler of this plan chains results as, or null if they are chained boxed
+        private final Class<?> resultType;
+        private final boolean hasListeners;
+        // The version of the plan it was built from
+        private final int version;
+
+        private Snapshot(DispatchTable[][] tables, LongAdder posts, EventTraceRecorder trace, Class<?> resultType,
+                         int version) {
+            this.tables = tables;
+            this.posts = posts;
+            this.trace = trace;
+            this.resultType = resultType;
+            this.version = version;
+
+            // Events that aren't side-aware go to everyone, so that table has every subscriber
+            boolean hasListeners = false;
+            for (DispatchTable table : tables[0]) {
+                hasListeners |= !table.isEmpty();
+            }
+            this.hasListeners = hasListeners;
+        }
+
+        private boolean hasListeners() {
+            return hasListeners;
+        }
+
+        private void fire(EventPhase phase, Event event, EventContext context) throws Throwable {
+            DispatchTable table = tables[getSideTable(event)][phase.ordinal()];
+            if (phase != EventPhase.CANCELLATION) {
+                if (context.canceled) {
+                    table = table.canceled;
+                }
+                if (context.primitiveType != resultType) {
+                    context.useResultType(resultType);
+                }
+            }
+            if (context.traced) {
+                table.fireTraced(event, context);
+            } else {
+                table.fire(event, context);
+            }
+        }
+
+    }
+
+    /**
+     * The subscribers of a single side table and phase, along with the position in the plan's hierarchy of the type
+     * each of them was registered for.
+     * For {@link Event.Generic} events, subscribers that expect specific generic arguments are grouped into buckets by
+     * those arguments, so each bucket only gets checked against the event once.
+     * Each table also keeps the subset of its subscribers that receive canceled events, which is used instead of it
+     * once an event has been canceled.
+     * {@link ParallelSafe} subscribers of events without results or cancellation are kept apart, and run concurrently
+     * once the rest of the table has run.
+     */
+    private static final class DispatchTable {
+
+        private static final Subscriber[] NO_SUBSCRIBERS = new Subscriber[0];
+        private static final int[] NO_SOURCES = new int[0];
+        private static final GenericBucket[] NO_BUCKETS = new GenericBucket[0];
+        private static final DispatchTable[][] EMPTY = createEmpty();
+
+        private final Subscriber[] subscribers;
+        private final int[] sources;
+        private final Subscriber[] parallel;
+        private final int[] parallelSources;
+        private final GenericBucket[] buckets;
+        private final DispatchTable canceled;
+
+        private DispatchTable(Subscriber[] subscribers, int[] sources, Subscriber[] parallel, int[] parallelSources,
+                              GenericBucket[] buckets, DispatchTable canceled) {
+            this.subscribers = subscribers;
+            this.sources = sources;
+            this.parallel = parallel;
+            this.parallelSources = parallelSources;
+            this.buckets = buckets;
+            this.canceled = canceled != null ? canceled : this;
+        }
+
+        private static DispatchTable[][] createEmpty() {
+            DispatchTable empty = new DispatchTable(NO_SUBSCRIBERS, NO_SOURCES, NO_SUBSCRIBERS, NO_SOURCES, NO_BUCKETS, null);
+            DispatchTable[][] tables = new DispatchTable[SIDE_TABLES][EventPhase.values().length];
+            for (DispatchTable[] phases : tables) {
+                Arrays.fill(phases, empty);
+            }
+            return tables;
+        }
+
+        private boolean isEmpty() {
+            return subscribers.length == 0 && parallel.length == 0 && buckets.length == 0;
+        }
+
+        private void fire(Event event, EventContext context) throws Throwable {
+            Subscriber[] subscribers = this.subscribers;
+            int[] sources = this.sources;
+            for (int i = 0; i < subscribers.length; i++) {
+                subscribers[i].fire(event, context, sources[i]);
+            }
+
+            if (parallel.length > 1 && ParallelFanOut.ENABLED) {
+                ParallelFanOut.fire(parallel, parallelSources, event, context);
+            } else {
+                for (int i = 0; i < parallel.length; i++) {
+                    parallel[i].fire(event, context, parallelSources[i]);
+                }
+            }
+
+            for (GenericBucket bucket : buckets) {
+                if (EventHandlerType.EventHandler.matchesGenerics((Event.Generic) event, bucket.type, bucket.generics)) {
+                    bucket.table.fire(event, context);
+                }
+            }
+        }
+
+        /**
+         * Fires the table while a flight recording is running or the bus is traced. Parallel-safe subscribers run on
+         * the posting thread like the rest, so each of them can be timed.
+         */
+        private void fireTraced(Event event, EventContext context) throws Throwable {
+            fireTraced(subscribers, sources, event, context);
+            fireTraced(parallel, parallelSources, event, context);
+
+            for (GenericBucket bucket : buckets) {
+                if (EventHandlerType.EventHandler.matchesGenerics((Event.Generic) event, bucket.type, bucket.generics)) {
+                    bucket.table.fireTraced(event, context);
+                }
+            }
+        }
+
+        private static void fireTraced(Subscriber[] subscribers, int[] sources, Event event, EventContext context) throws Throwable {
+            EventTraceRecorder trace = context.trace;
+            for (int i = 0; i < subscribers.length; i++) {
+                Subscriber subscriber = subscribers[i];
+                context.handlers++;
+                if (!context.traceSubscribers && trace == null) {
+                    subscriber.fire(event, context, sources[i]);
+                    continue;
+                }
+
+                Object recorded = context.traceSubscribers ? FlightRecording.beginSubscriber() : null;
+                long start = System.nanoTime();
+                subscriber.fire(event, context, sources[i]);
+                if (trace != null) {
+                    trace.recordInvocation(subscriber.handler, System.nanoTime() - start);
+                }
+                if (context.traceSubscribers) {
+                    FlightRecording.commitSubscriber(recorded, event.getClass(), subscriber.handler.getMethod(),
+                            context.phase.name());
+                }
+            }
+        }
+
+        private static final class Builder {
+
+            private final EventType[] hierarchy;
+            private final boolean generic;
+            private final boolean parallel;
+            private final List<Subscriber> subscribers = new ArrayList<>();
+            private final List<Integer> sources = new ArrayList<>();
+            private final List<Subscriber> parallelSubscribers = new ArrayList<>();
+            private final List<Integer> parallelSources = new ArrayList<>();
+            private final List<GenericBucket.Builder> buckets = new ArrayList<>();
+            private final Builder canceled;
+
+            private Builder(EventType[] hierarchy, boolean generic, boolean parallel, boolean splitCanceled) {
+                this.hierarchy = hierarchy;
+                this.generic = generic;
+                this.parallel = parallel;
+                this.canceled = splitCanceled ? new Builder(hierarchy, generic, parallel, false) : null;
+            }
+
+            private void add(Subscriber subscriber, int source) {
+                if (canceled != null && subscriber.handler.receivesCanceled()) {
+                    canceled.add(subscriber, source);
+                }
+
+                Class<?>[] generics = subscriber.handler.getGenerics();
+                if (!generic || isWildcard(generics)) {
+                    if (parallel && subscriber.handler.isParallelSafe()) {
+                        parallelSubscribers.add(subscriber);
+                        parallelSources.add(source);
                     } else {
-                        context.result = result;
+                        subscribers.add(subscriber);
+                        sources.add(source);
+                    }
+                    return;
+                }
+
+                EventType type = hierarchy[source];
+                for (GenericBucket.Builder bucket : buckets) {
+                    if (bucket.type == type && Arrays.equals(bucket.generics, generics)) {
+                        bucket.table.add(subscriber, source);
+                        return;
+                    }
+                }
+                GenericBucket.Builder bucket = new GenericBucket.Builder(type, generics,
+                        new Builder(hierarchy, false, parallel, false));
+                bucket.table.add(subscriber, source);
+                buckets.add(bucket);
+            }
+
+            private DispatchTable build() {
+                GenericBucket[] buckets = NO_BUCKETS;
+                if (!this.buckets.isEmpty()) {
+                    buckets = new GenericBucket[this.buckets.size()];
+                    for (int i = 0; i < buckets.length; i++) {
+                        buckets[i] = this.buckets.get(i).build();
+                    }
+                }
+                return new DispatchTable(subscribers.toArray(NO_SUBSCRIBERS), toArray(sources),
+                        parallelSubscribers.toArray(NO_SUBSCRIBERS), toArray(parallelSources), buckets,
+                        canceled != null ? canceled.build() : null);
+            }
+
+            private static int[] toArray(List<Integer> sources) {
+                return sources.isEmpty() ? NO_SOURCES : sources.stream().mapToInt(Integer::intValue).toArray();
+            }
+
+            private static boolean isWildcard(Class<?>[] generics) {
+                for (Class<?> generic : generics) {
+                    if (generic != null) return false;
+                }
+                return true;
+            }
+
+        }
+
+    }
+
+    /**
+     * Runs the parallel-safe subscribers of a table on the common {@link ForkJoinPool}, splitting them into a few
+     * tasks per worker, and waits for all of them to finish.
+     * The properties the subscribers unpack are cached on the posting thread before forking, so they're still computed
+     * once per post and the tasks only ever read the post's cache.
+     */
+    private static final class ParallelFanOut extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        // A pool with a single worker would only add overhead to running the subscribers on the posting thread
+        private static final boolean ENABLED = ForkJoinPool.getCommonPoolParallelism() > 1;
+        private static final int TASKS_PER_WORKER = 4;
+
+        private final Subscriber[] subscribers;
+        private final int[] sources;
+        private final Event event;
+        // The post's property cache by the position of the source, only set for the sources that cache properties
+        private final Object[][] properties;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        private ParallelFanOut(Subscriber[] subscribers, int[] sources, Event event, Object[][] properties,
+                               int from, int to, int threshold) {
+            this.subscribers = subscribers;
+            this.sources = sources;
+            this.event = event;
+            this.properties = properties;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        private static void fire(Subscriber[] subscribers, int[] sources, Event event, EventContext context) throws Throwable {
+            Object[][] properties = new Object[context.hierarchy.length][];
+            for (int i = 0; i < subscribers.length; i++) {
+                EventHandlerType.EventHandler handler = subscribers[i].handler;
+                if (handler.cachesProperties()) {
+                    int source = sources[i];
+                    if (properties[source] == null) {
+                        properties[source] = context.getProperties(source);
                     }
+                    handler.cacheProperties(event, properties[source]);
                 }
             }
+
+            int tasks = ForkJoinPool.getCommonPoolParallelism() * TASKS_PER_WORKER;
+            int threshold = Math.max(1, (subscribers.length + tasks - 1) / tasks);
+            try {
+                ForkJoinPool.commonPool().invoke(new ParallelFanOut(subscribers, sources, event, properties,
+                        0, subscribers.length, threshold));
+            } catch (HandlerFailure e) {
+                // The pool may have wrapped the failure again to rethrow it on this thread
+                Throwable cause = e;
+                while (cause instanceof HandlerFailure) {
+                    cause = cause.getCause();
+                }
+                throw cause;
+            }
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > threshold) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ParallelFanOut(subscribers, sources, event, properties, from, middle, threshold),
+                        new ParallelFanOut(subscribers, sources, event, properties, middle, to, threshold));
+                return;
+            }
+
+            for (int i = from; i < to; i++) {
+                Subscriber subscriber = subscribers[i];
+                Object[] values = subscriber.handler.cachesProperties() ? properties[sources[i]] : null;
+                try {
+                    subscriber.fireConcurrently(event, values);
+                } catch (Throwable t) {
+                    throw new HandlerFailure(t);
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Carries the exception thrown by a parallel-safe subscriber back to the posting thread.
+     */
+    private static final class HandlerFailure extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        public HandlerFailure(Throwable cause) {
+            super(cause);
+        }
+
+    }
+
+    /**
+     * The subscribers of a generic event type that all expect the same generic arguments.
+     */
+    private static final class GenericBucket {
+
+        private final EventType type;
+        private final Class<?>[] generics;
+        private final DispatchTable table;
+
+        private GenericBucket(EventType type, Class<?>[] generics, DispatchTable table) {
+            this.type = type;
+            this.generics = generics;
+            this.table = table;
+        }
+
+        private static final class Builder {
+
+            private final EventType type;
+            private final Class<?>[] generics;
+            private final DispatchTable.Builder table;
+
+            private Builder(EventType type, Class<?>[] generics, DispatchTable.Builder table) {
+                this.type = type;
+                this.generics = generics;
+                this.table = table;
+            }
+
+            private GenericBucket build() {
+                return new GenericBucket(type, generics, table.build());
+            }
+
+        }
+
+    }
+
+    private static class Subscriber {
+
+        private final EventHandlerType.EventHandler handler;
+        // Null for static handlers and weakly referenced targets
+        private final Object target;
+        private final ListenerReference reference;
+        private final int hash;
+        // Where it is in its dispatcher's registration order, only touched while holding the lock
+        private int slot;
+
+        private Subscriber(EventHandlerType.EventHandler handler, Object target) {
+            this.handler = handler;
+            this.target = target;
+            this.reference = null;
+            this.hash = 31 * handler.hashCode() + Objects.hashCode(target);
+        }
+
+        private Subscriber(EventHandlerType.EventHandler handler, ListenerReference reference, int targetHash) {
+            this.handler = handler;
+            this.target = null;
+            this.reference = reference;
+            this.hash = 31 * handler.hashCode() + targetHash;
+        }
+
+        private Subscriber(Subscriber subscriber) {
+            this.handler = subscriber.handler;
+            this.target = subscriber.target;
+            this.reference = subscriber.reference;
+            this.hash = subscriber.hash;
+        }
+
+        private Object getTarget() {
+            return reference != null ? reference.get() : target;
+        }
+
+        void fire(Event event, EventContext context, int source) throws Throwable {
+            Object target = this.target;
+            if (reference != null) {
+                // The target may have been collected, but not purged yet
+                target = reference.get();
+                if (target == null) return;
+            }
+
+            Object[] properties = handler.cachesProperties() ? context.getProperties(source) : null;
+            if (context.phase == EventPhase.CANCELLATION) {
+                context.canceled = handler.fireCancellation(target, event, context.canceled, properties);
+            } else if (context.resultKind == null) {
+                context.result = handler.fire(target, event, context.result, properties);
+            } else {
+                fireUnboxed(target, event, context, properties);
+            }
+        }
+
+        /**
+         * Fires the handler while the result is kept unboxed, in which case every handler that deals with results is
+         * of the context's result kind.
+         */
+        private void fireUnboxed(Object target, Event event, EventContext context, Object[] properties) throws Throwable {
+            EventHandlerType.ResultKind kind = handler.getResultKind();
+            if (kind == null) {
+                handler.fire(target, event, null, properties);
+                return;
+            }
+
+            switch (kind) {
+                case BOOLEAN:
+                    context.booleanResult = handler.fireBoolean(target, event, context.booleanResult, properties);
+                    break;
+                case INT:
+                    context.intResult = handler.fireInt(target, event, context.intResult, properties);
+                    break;
+                case LONG:
+                    context.longResult = handler.fireLong(target, event, context.longResult, properties);
+                    break;
+                case DOUBLE:
+                    context.doubleResult = handler.fireDouble(target, event, context.doubleResult, properties);
+                    break;
+            }
+        }
+
+        /**
+         * Fires a parallel-safe subscriber, which doesn't deal with results, outside of the posting thread.
+         */
+        void fireConcurrently(Event event, Object[] properties) throws Throwable {
+            Object target = this.target;
+            if (reference != null) {
+                target = reference.get();
+                if (target == null) return;
+            }
+
+            handler.fire(target, event, null, properties);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Subscriber)) return false;
+
+            Subscriber other = (Subscriber) obj;
+            if (handler != other.handler || hash != other.hash) return false;
+
+            // Collected targets are only equal to themselves
+            Object target = getTarget();
+            return (target != null || reference == null) && Objects.equals(target, other.getTarget());
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+    }
+
+    /**
+     * Subscriber that records how long it takes to run into the bus' metrics. Only used in the dispatch tables built
+     * while metrics are enabled, so the regular subscribers never need to check for them.
+     */
+    private static final class MeteredSubscriber extends Subscriber {
+
+        private final EventMetrics.HandlerCounters counters;
+
+        private MeteredSubscriber(Subscriber subscriber, EventMetrics.HandlerCounters counters) {
+            super(subscriber);
+            this.counters = counters;
+        }
+
+        @Override
+        void fire(Event event, EventContext context, int source) throws Throwable {
+            long start = System.nanoTime();
+            try {
+                super.fire(event, context, source);
+            } finally {
+                counters.record(System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        void fireConcurrently(Event event, Object[] properties) throws Throwable {
+            long start = System.nanoTime();
+            try {
+                super.fireConcurrently(event, properties);
+            } finally {
+                counters.record(System.nanoTime() - start);
+            }
         }
 
     }
@@ -9,28 +9,32 @@ import mail.movetolib.util.AnnotationHelper;
 
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Parameter;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
-import java.util.IdentityHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
 
 final class EventHandlerType {
 
-    private static final Map<Class<?>, EventHandlerType> STATIC_HANDLERS = new IdentityHashMap<>();
-    private static final Map<Class<?>, EventHandlerType> INSTANCED_HANDLERS = new IdentityHashMap<>();
+    private static final Map<Class<?>, EventHandlerType> STATIC_HANDLERS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, EventHandlerType> INSTANCED_HANDLERS = new ConcurrentHashMap<>();
 
     static EventHandlerType of(Class<?> handler, boolean isStatic) {
-        EventHandlerType type = (isStatic ? STATIC_HANDLERS : INSTANCED_HANDLERS).get(handler);
+        Map<Class<?>, EventHandlerType> handlers = isStatic ? STATIC_HANDLERS : INSTANCED_HANDLERS;
+        EventHandlerType type = handlers.get(handler);
         if (type != null) return type;
 
-        type = new EventHandlerType(handler, isStatic);
-        (isStatic ? STATIC_HANDLERS : INSTANCED_HANDLERS).put(handler, type);
-        return type;
+        return handlers.computeIfAbsent(handler, c -> new EventHandlerType(c, isStatic));
     }
 
     private final Class<?> type;
@@ -45,6 +49,25 @@ final class EventHandlerType {
     }
 
     private void findHandlers() {
+        // Classes compiled with the event index processor, or cached by an earlier run, don't need to be scanned
+        int kind = isStatic ? EventIndex.Entry.STATIC_SUBSCRIBERS : EventIndex.Entry.INSTANCE_SUBSCRIBERS;
+        EventIndex.Entry entry = EventIndex.find(type, kind);
+        if (entry != null) {
+            try {
+                for (HandlerInfo info : entry.getHandlers(type)) {
+                    if (info.isStatic == isStatic) {
+                        addHandler(info);
+                    }
+                }
+                return;
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // The index is out of date, and may even refer to classes that can't be loaded anymore, so go
+                // through the class again
+                handlers.clear();
+            }
+        }
+
+        List<String[]> cached = EventIndex.isCaching() ? new ArrayList<>() : null;
         for (Method method : type.getMethods()) {
             if (Modifier.isStatic(method.getModifiers()) != isStatic) continue;
 
@@ -57,190 +80,555 @@ final class EventHandlerType {
                 if (eventAnnotation != null && eventAnnotation.deferred()) continue;
             }
 
-            Class<?>[] parameters = method.getParameterTypes();
-            if (parameters.length == 0) {
-                throw new IllegalStateException("Event subscribers need to at least take in the event as an argument. "
-                        + "Offender: " + method.getDeclaringClass().getName() + "#" + method.getName());
-            }
+            HandlerInfo info = new HandlerInfo(method, annotation);
+            addHandler(info);
+            if (cached != null) cached.add(info.toIndexFields());
+        }
 
-            Class<?> firstArg = parameters[0];
-            if (!Event.class.isAssignableFrom(firstArg)) {
-                throw new IllegalStateException("The first argument of an event subscriber must be the event itself. "
-                        + "Offender: " + method.getDeclaringClass().getName() + "#" + method.getName());
-            }
-            if (annotation.phase() == EventPhase.CANCELLATION && !Event.Cancelable.class.isAssignableFrom(firstArg)) {
-                throw new IllegalStateException("Attempting to register a handler for the cancellation phase of a non-cancellable event. "
-                        + "Offender: " + method.getDeclaringClass().getName() + "#" + method.getName());
-            }
+        // Only cached once every subscriber is known to be valid
+        if (cached != null) {
+            EventIndex.cache(type, kind, cached, Collections.emptyList());
+        }
+    }
+
+    private void addHandler(HandlerInfo info) {
+        Class<?>[] parameters = info.parameterTypes;
+        if (parameters.length == 0) {
+            throw new IllegalStateException("Event subscribers need to at least take in the event as an argument. "
+                    + "Offender: " + info);
+        }
 
-            EventType eventType = EventType.of((Class<? extends Event>) firstArg);
-            EventHandler handler = new EventHandler(eventType, method, annotation);
-            handlers.add(handler);
+        Class<?> firstArg = parameters[0];
+        if (!Event.class.isAssignableFrom(firstArg)) {
+            throw new IllegalStateException("The first argument of an event subscriber must be the event itself. "
+                    + "Offender: " + info);
         }
+        if (info.phase == EventPhase.CANCELLATION && !Event.Cancelable.class.isAssignableFrom(firstArg)) {
+            throw new IllegalStateException("Attempting to register a handler for the cancellation phase of a non-cancellable event. "
+                    + "Offender: " + info);
+        }
+
+        EventType eventType = EventType.of((Class<? extends Event>) firstArg);
+        EventHandler handler = new EventHandler(eventType, info);
+        handlers.add(handler);
     }
 
     Set<EventHandler> getHandlers() {
         return handlers;
     }
 
+    /**
+     * How primitive results are passed from one handler to the next without boxing them. Narrower types share the
+     * carrier they widen to, so {@code float} results are carried as {@code double} and {@code short} ones as
+     * {@code int}.
+     */
+    enum ResultKind {
+
+        BOOLEAN(Boolean.TYPE),
+        INT(Integer.TYPE),
+        LONG(Long.TYPE),
+        DOUBLE(Double.TYPE);
+
+        private final Class<?> carrier;
+
+        ResultKind(Class<?> carrier) {
+            this.carrier = carrier;
+        }
+
+        /**
+         * Gets the kind that carries results of the given type, or null if they can only be passed around boxed.
+         */
+        static ResultKind of(Class<?> type) {
+            if (type == Boolean.TYPE) return BOOLEAN;
+            if (type == Integer.TYPE || type == Short.TYPE || type == Byte.TYPE || type == Character.TYPE) return INT;
+            if (type == Long.TYPE) return LONG;
+            if (type == Float.TYPE || type == Double.TYPE) return DOUBLE;
+            return null;
+        }
+
+    }
+
     static final class EventHandler {
 
+        private static final MethodHandle GET_PROPERTY;
+
+        static {
+            try {
+                GET_PROPERTY = MethodHandles.lookup().findVirtual(EventType.Property.class, "get",
+                        MethodType.methodType(Object.class, Event.class, Object[].class));
+            } catch (NoSuchMethodException | IllegalAccessException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
         private final EventType eventType;
+        private final HandlerInfo info;
         private final boolean isStatic;
         private final boolean returnsValue;
+        // The type of the results this handler chains, or null if it doesn't or is a cancellation handler
+        private final Class<?> resultType;
+        private final ResultKind resultKind;
 
         private final EventPhase phase;
         private final boolean receiveCanceled;
         private final Environment.Side side;
-        private final Type[] generics;
+        private final Class<?>[] generics;
+        private final boolean parallelSafe;
 
-        private final EventType.Property[] properties;
-        private final MethodHandle handle;
+        private final boolean cachesProperties;
+        // The immutable properties the handler unpacks, which are cached for the rest of the post
+        private final EventType.Property[] cachedProperties;
+        private final MethodHandle invoker;
+        // Only set for handlers of primitive results, typed to their result kind's carrier
+        private final MethodHandle primitiveInvoker;
 
-        private EventHandler(EventType eventType, Method method, Event.Subscribe annotation) {
+        private EventHandler(EventType eventType, HandlerInfo info) {
             this.eventType = eventType;
-            this.isStatic = Modifier.isStatic(method.getModifiers());
-            this.returnsValue = method.getReturnType() != Void.TYPE;
+            this.info = info;
+            this.isStatic = info.isStatic;
+            this.returnsValue = info.returnType != Void.TYPE;
 
-            this.phase = annotation.phase();
-            this.receiveCanceled = annotation.receiveCanceled();
+            this.phase = info.phase;
+            this.receiveCanceled = info.receiveCanceled;
 
-            ClientOnly clientOnly = AnnotationHelper.getAnnotation(method, ClientOnly.class);
-            ServerOnly serverOnly = AnnotationHelper.getAnnotation(method, ServerOnly.class);
-            if (clientOnly != null && serverOnly != null) {
+            if (info.clientOnly && info.serverOnly) {
                 throw new IllegalStateException("A event handler cannot be both client-only and server only. "
-                        + "Offender: " + method.getDeclaringClass().getName() + "#" + method.getName());
+                        + "Offender: " + info);
             }
-            if (clientOnly != null) {
+            if (info.clientOnly) {
                 this.side = Environment.Side.CLIENT;
-            } else if (serverOnly != null) {
+            } else if (info.serverOnly) {
                 this.side = Environment.Side.SERVER;
             } else {
                 this.side = null;
             }
 
-            Type eventParam = method.getGenericParameterTypes()[0];
-            if (eventParam instanceof ParameterizedType) {
-                this.generics = ((ParameterizedType) eventParam).getActualTypeArguments();
-            } else {
-                this.generics = new Type[0];
-            }
+            this.generics = info.generics;
+            this.parallelSafe = info.parallelSafe;
 
-            this.properties = new EventType.Property[method.getParameterCount() - 1];
+            Class<?>[] parameters = info.parameterTypes;
+            EventType.Property[] properties = new EventType.Property[parameters.length - 1];
+            List<EventType.Property> cachedProperties = new ArrayList<>();
 
-            Parameter[] parameters = method.getParameters();
             int resultParam = -1;
             for (int i = 1; i < parameters.length; i++) {
-                Parameter parameter = parameters[i];
-
-                Event.Result result = AnnotationHelper.getAnnotation(parameter, Event.Result.class);
-                if (result != null) {
+                if (info.results[i]) {
                     if (resultParam == -1) {
                         resultParam = i;
                     } else {
                         throw new IllegalStateException("Two arguments of an event subscriber are set to receive the "
                                 + "previous result. This should not be allowed to happen. "
-                                + "Offender: " + method.getDeclaringClass().getName() + "#" + method.getName()
-                                + " (" + (resultParam + 1) + ", " + (i + 1) + ")");
+                                + "Offender: " + info + " (" + (resultParam + 1) + ", " + (i + 1) + ")");
                     }
                     continue;
                 }
 
-                Event.Unpack unpack = AnnotationHelper.getAnnotation(parameter, Event.Unpack.class);
+                String unpack = info.unpacks[i];
                 if (unpack == null) {
                     throw new IllegalStateException("An extra argument of an event subscriber must be annotated with @Event.Unpack or @Event.Result. "
-                            + "Offender: " + method.getDeclaringClass().getName() + "#" + method.getName() + " (" + (i + 1) + ")");
+                            + "Offender: " + info + " (" + (i + 1) + ")");
                 }
 
-                EventType.Property property = eventType.getProperty(unpack.value());
+                EventType.Property property = eventType.getProperty(unpack);
                 if (property == null) {
-                    throw new IllegalStateException("Invalid property name: " + unpack.value() + ". "
-                            + "Offender: " + method.getDeclaringClass().getName() + "#" + method.getName());
+                    throw new IllegalStateException("Invalid property name: " + unpack + ". "
+                            + "Offender: " + info);
                 }
 
-                this.properties[i - 1] = property;
+                properties[i - 1] = property;
+                if (!property.isMutable()) {
+                    cachedProperties.add(property);
+                }
             }
 
+            this.cachesProperties = !cachedProperties.isEmpty();
+            this.cachedProperties = cachedProperties.toArray(new EventType.Property[0]);
+
             if (resultParam != -1 && !eventType.hasResult() && phase != EventPhase.CANCELLATION) {
                 throw new IllegalStateException("No result value can be retrieved for an event without a result."
-                        + "Offender: " + method.getDeclaringClass().getName() + "#" + method.getName());
+                        + "Offender: " + info);
             }
 
             if (phase == EventPhase.CANCELLATION) {
-                if (resultParam == -1 || parameters[resultParam].getType() != Boolean.TYPE || method.getReturnType() != Boolean.TYPE) {
+                if (resultParam == -1 || parameters[resultParam] != Boolean.TYPE || info.returnType != Boolean.TYPE) {
                     throw new IllegalStateException("Event cancellation handlers must take in and output a boolean with the result of the cancellation. "
-                            + "Offender: " + method.getDeclaringClass().getName() + "#" + method.getName());
+                            + "Offender: " + info);
                 }
             } else {
-                Class<?> returnType = method.getReturnType();
+                Class<?> returnType = info.returnType;
                 if ((returnType == Void.TYPE) != (resultParam == -1)) {
                     throw new IllegalStateException("Event handlers that deal with results must both take in the previous value and return one."
-                            + "Offender: " + method.getDeclaringClass().getName() + "#" + method.getName());
-                } else if (resultParam != -1 && parameters[resultParam].getType() != returnType) {
+                            + "Offender: " + info);
+                } else if (resultParam != -1 && parameters[resultParam] != returnType) {
                     throw new IllegalStateException("The return type and input of an event handler must match."
-                            + "Offender: " + method.getDeclaringClass().getName() + "#" + method.getName());
+                            + "Offender: " + info);
                 }
             }
 
+            if (parallelSafe && (resultParam != -1 || phase == EventPhase.CANCELLATION)) {
+                throw new IllegalStateException("Event handlers that deal with results or cancellation cannot be parallel-safe. "
+                        + "Offender: " + info);
+            }
+
+            this.resultType = returnsValue && phase != EventPhase.CANCELLATION ? info.returnType : null;
+            this.resultKind = resultType != null ? ResultKind.of(resultType) : null;
+
             try {
-                this.handle = MethodHandles.publicLookup().unreflect(method);
-            } catch (IllegalAccessException e) {
+                MethodHandle handle = info.getHandle();
+                // Cancellation handlers pass the cancellation state around as a primitive instead of boxing it
+                this.invoker = createInvoker(handle, properties,
+                        phase == EventPhase.CANCELLATION ? Boolean.TYPE : Object.class);
+                // The boxed invoker is still needed for buses where this handler is chained with ones of other types
+                this.primitiveInvoker = resultKind != null ? createInvoker(handle, properties, resultKind.carrier) : null;
+            } catch (IllegalAccessException | NoSuchMethodException e) {
                 throw new IllegalStateException("Cannot access event subscriber. "
-                        + "Offender: " + method.getDeclaringClass().getName() + "#" + method.getName(), e);
+                        + "Offender: " + info, e);
             }
         }
 
+        /**
+         * Adapts the subscriber's handle into one of type {@code (Object, Event, R, Object[])R}, taking in the target,
+         * the event, the previous result and the cached property values, so it can be called with
+         * {@link MethodHandle#invokeExact(Object...)} without building an argument array.
+         */
+        private MethodHandle createInvoker(MethodHandle handle, EventType.Property[] properties, Class<?> resultType) {
+            MethodHandle invoker = isStatic ? MethodHandles.dropArguments(handle, 0, Object.class) : handle;
+            invoker = invoker.asType(invoker.type().changeParameterType(0, Object.class).changeParameterType(1, Event.class));
+
+            // Replace every extra argument with the handle that computes it, starting from the end so the positions
+            // of the ones we haven't processed yet don't shift
+            for (int i = properties.length - 1; i >= 0; i--) {
+                int position = i + 2;
+                Class<?> parameterType = invoker.type().parameterType(position);
+                EventType.Property property = properties[i];
+
+                MethodHandle argument;
+                if (property == null) {
+                    // Primitive carriers can be wider than the subscriber's type, which asType won't narrow
+                    MethodHandle identity = MethodHandles.identity(resultType);
+                    MethodType type = MethodType.methodType(parameterType, resultType);
+                    argument = resultType.isPrimitive()
+                            ? MethodHandles.explicitCastArguments(identity, type) : identity.asType(type);
+                } else if (property.isMutable()) {
+                    argument = MethodHandles.dropArguments(property.getHandle(), 1, Object[].class)
+                            .asType(MethodType.methodType(parameterType, Event.class, Object[].class));
+                } else {
+                    argument = GET_PROPERTY.bindTo(property)
+                            .asType(MethodType.methodType(parameterType, Event.class, Object[].class));
+                }
+                invoker = MethodHandles.collectArguments(invoker, position, argument);
+            }
+
+            // Merge the duplicated arguments back into (target, event, prevResult, properties)
+            int[] reorder = new int[invoker.type().parameterCount()];
+            reorder[0] = 0;
+            reorder[1] = 1;
+            int index = 2;
+            for (EventType.Property property : properties) {
+                if (property == null) {
+                    reorder[index++] = 2;
+                } else {
+                    reorder[index++] = 1;
+                    reorder[index++] = 3;
+                }
+            }
+            MethodType type = MethodType.methodType(invoker.type().returnType(), Object.class, Event.class, resultType, Object[].class);
+            invoker = MethodHandles.permuteArguments(invoker, type, reorder);
+
+            if (returnsValue) {
+                return invoker.asType(invoker.type().changeReturnType(resultType));
+            }
+            MethodHandle returnPrevious = MethodHandles.dropArguments(
+                    MethodHandles.dropArguments(MethodHandles.identity(resultType), 0, Object.class, Event.class),
+                    3, Object[].class);
+            return MethodHandles.foldArguments(returnPrevious, invoker);
+        }
+
         public EventType getEventType() {
             return eventType;
         }
 
+        /**
+         * Gets the subscriber method. Handlers found through the event index only look it up when this is called.
+         */
+        public Method getMethod() {
+            return info.getMethod();
+        }
+
         public EventPhase getPhase() {
             return phase;
         }
 
-        public Object fire(Object target, Event event, Object prevResult, boolean canceled,
-                           Map<EventType.Property, Object> propertyMap) throws Throwable {
-            if (canceled && !receiveCanceled) return prevResult;
-            if (side != null && event instanceof Event.SideAware && ((Event.SideAware) event).getEventSide() != side)
-                return prevResult;
-            if (event instanceof Event.Generic) {
-                for (int i = 0; i < generics.length; i++) {
-                    Class<?> generic = (Class) generics[i];
-                    if (generic != null && !((Event.Generic) event).matchesGenericType((Class<? extends Event.Generic>) eventType.getClazz(), i, generic)) {
-                        return prevResult;
-                    }
+        /**
+         * Whether this handler should still be fired after the event has been canceled. This is checked by the bus
+         * when building its dispatch tables, not when firing.
+         */
+        public boolean receivesCanceled() {
+            return receiveCanceled;
+        }
+
+        /**
+         * Gets the only side this handler should receive side-aware events from, or null if it should receive them
+         * from both. This is checked by the bus when building its dispatch tables, not when firing.
+         */
+        public Environment.Side getSide() {
+            return side;
+        }
+
+        /**
+         * Whether this handler is marked with {@link ParallelSafe}, so it can be run concurrently with the other
+         * handlers of its phase. This is checked by the bus when building its dispatch tables, not when firing.
+         */
+        public boolean isParallelSafe() {
+            return parallelSafe;
+        }
+
+        /**
+         * Whether this handler unpacks any immutable properties, and thus needs the property cache to be passed in.
+         */
+        public boolean cachesProperties() {
+            return cachesProperties;
+        }
+
+        /**
+         * Computes the immutable properties the handler unpacks into the given slots, unless they're already cached.
+         */
+        void cacheProperties(Event event, Object[] values) throws Throwable {
+            for (EventType.Property property : cachedProperties) {
+                property.get(event, values);
+            }
+        }
+
+        public Object fire(Object target, Event event, Object prevResult, Object[] properties) throws Throwable {
+            return (Object) invoker.invokeExact(target, event, prevResult, properties);
+        }
+
+        public boolean fireCancellation(Object target, Event event, boolean canceled,
+                                        Object[] properties) throws Throwable {
+            return (boolean) invoker.invokeExact(target, event, canceled, properties);
+        }
+
+        /**
+         * Gets the type of the results this handler takes in and returns, or null if it doesn't deal with results.
+         * Cancellation handlers don't count, since their results are always booleans.
+         */
+        public Class<?> getResultType() {
+            return resultType;
+        }
+
+        /**
+         * Gets how this handler's results can be chained without boxing, or null if they can't.
+         * Only handlers of this kind can be fired through the matching primitive method.
+         */
+        public ResultKind getResultKind() {
+            return resultKind;
+        }
+
+        public boolean fireBoolean(Object target, Event event, boolean prevResult, Object[] properties) throws Throwable {
+            return (boolean) primitiveInvoker.invokeExact(target, event, prevResult, properties);
+        }
+
+        public int fireInt(Object target, Event event, int prevResult, Object[] properties) throws Throwable {
+            return (int) primitiveInvoker.invokeExact(target, event, prevResult, properties);
+        }
+
+        public long fireLong(Object target, Event event, long prevResult, Object[] properties) throws Throwable {
+            return (long) primitiveInvoker.invokeExact(target, event, prevResult, properties);
+        }
+
+        public double fireDouble(Object target, Event event, double prevResult, Object[] properties) throws Throwable {
+            return (double) primitiveInvoker.invokeExact(target, event, prevResult, properties);
+        }
+
+        /**
+         * Gets the classes of the generic arguments this handler expects, with null for the ones that match anything.
+         * These are checked by the bus when dispatching {@link Event.Generic} events, not when firing.
+         */
+        public Class<?>[] getGenerics() {
+            return generics;
+        }
+
+        @Override
+        public String toString() {
+            return info.toString();
+        }
+
+        /**
+         * Checks whether the given event matches every non-wildcard generic argument of a handler for the given type.
+         */
+        public static boolean matchesGenerics(Event.Generic event, EventType eventType, Class<?>[] generics) {
+            Class<? extends Event.Generic> type = (Class<? extends Event.Generic>) eventType.getClazz();
+            for (int i = 0; i < generics.length; i++) {
+                Class<?> generic = generics[i];
+                if (generic != null && !event.matchesGenericType(type, i, generic)) {
+                    return false;
                 }
             }
+            return true;
+        }
 
-            int offset = isStatic ? 1 : 2;
-            Object[] arguments = new Object[properties.length + offset];
-            if (isStatic) {
-                arguments[0] = event;
+        private static Class<?> resolveGeneric(Type type) {
+            if (type instanceof Class) {
+                return (Class<?>) type;
+            } else if (type instanceof ParameterizedType) {
+                // Nested generics are matched by their raw type
+                return resolveGeneric(((ParameterizedType) type).getRawType());
+            }
+            // Wildcards and type variables match anything
+            return null;
+        }
+
+    }
+
+    /**
+     * Everything about a subscriber method that is needed to create its handler, either read from the method itself
+     * or from the {@link EventIndex}, in which case the method is only looked up if it's needed.
+     */
+    static final class HandlerInfo {
+
+        private final Class<?> declaringClass;
+        private final String name;
+        private final boolean isStatic;
+        private final Class<?> returnType;
+        private final Class<?>[] parameterTypes;
+
+        private final EventPhase phase;
+        private final boolean receiveCanceled;
+        private final boolean clientOnly;
+        private final boolean serverOnly;
+        private final Class<?>[] generics;
+        private final boolean parallelSafe;
+
+        // Indexed by parameter, ignoring the event itself
+        private final boolean[] results;
+        private final String[] unpacks;
+
+        private volatile Method method;
+        // Only looked up ahead of time for index and cache entries
+        private MethodHandle handle;
+
+        private HandlerInfo(Method method, Event.Subscribe annotation) {
+            this.declaringClass = method.getDeclaringClass();
+            this.name = method.getName();
+            this.isStatic = Modifier.isStatic(method.getModifiers());
+            this.returnType = method.getReturnType();
+            this.parameterTypes = method.getParameterTypes();
+
+            this.phase = annotation.phase();
+            this.receiveCanceled = annotation.receiveCanceled();
+            this.clientOnly = AnnotationHelper.getAnnotation(method, ClientOnly.class) != null;
+            this.serverOnly = AnnotationHelper.getAnnotation(method, ServerOnly.class) != null;
+            this.parallelSafe = AnnotationHelper.getAnnotation(method, ParallelSafe.class) != null;
+
+            Type eventParam = parameterTypes.length == 0 ? null : method.getGenericParameterTypes()[0];
+            if (eventParam instanceof ParameterizedType) {
+                Type[] arguments = ((ParameterizedType) eventParam).getActualTypeArguments();
+                this.generics = new Class<?>[arguments.length];
+                for (int i = 0; i < arguments.length; i++) {
+                    this.generics[i] = EventHandler.resolveGeneric(arguments[i]);
+                }
             } else {
-                arguments[0] = target;
-                arguments[1] = event;
+                this.generics = new Class<?>[0];
             }
-            for (int i = 0; i < properties.length; i++) {
-                EventType.Property property = properties[i];
-                if (property != null) {
-                    if (property.isMutable()) {
-                        arguments[i + offset] = property.get(event);
-                    } else {
-                        if (propertyMap.containsKey(property)) {
-                            arguments[i + offset] = propertyMap.get(property);
-                        } else {
-                            Object value = property.get(event);
-                            arguments[i + offset] = value;
-                            propertyMap.put(property, value);
-                        }
-                    }
+
+            Parameter[] parameters = method.getParameters();
+            this.results = new boolean[parameters.length];
+            this.unpacks = new String[parameters.length];
+            for (int i = 1; i < parameters.length; i++) {
+                results[i] = AnnotationHelper.getAnnotation(parameters[i], Event.Result.class) != null;
+                Event.Unpack unpack = AnnotationHelper.getAnnotation(parameters[i], Event.Unpack.class);
+                unpacks[i] = unpack != null ? unpack.value() : null;
+            }
+
+            this.method = method;
+        }
+
+        HandlerInfo(Class<?> declaringClass, String name, boolean isStatic, Class<?> returnType,
+                    Class<?>[] parameterTypes, EventPhase phase, boolean receiveCanceled, boolean clientOnly,
+                    boolean serverOnly, Class<?>[] generics, boolean parallelSafe, boolean[] results,
+                    String[] unpacks) {
+            this.declaringClass = declaringClass;
+            this.name = name;
+            this.isStatic = isStatic;
+            this.returnType = returnType;
+            this.parameterTypes = parameterTypes;
+            this.phase = phase;
+            this.receiveCanceled = receiveCanceled;
+            this.clientOnly = clientOnly;
+            this.serverOnly = serverOnly;
+            this.generics = generics;
+            this.parallelSafe = parallelSafe;
+            this.results = results;
+            this.unpacks = unpacks;
+        }
+
+        /**
+         * Looks up the subscriber's handle right away, so a subscriber that's no longer in its class is caught while
+         * reading an out of date index or cache entry, instead of failing the registration later on.
+         */
+        void resolveHandle() throws IllegalAccessException, NoSuchMethodException {
+            this.handle = getHandle();
+        }
+
+        private MethodHandle getHandle() throws IllegalAccessException, NoSuchMethodException {
+            if (handle != null) return handle;
+
+            Method method = this.method;
+            if (method != null) {
+                return MethodHandles.publicLookup().unreflect(method);
+            }
+
+            MethodType type = MethodType.methodType(returnType, parameterTypes);
+            if (isStatic) {
+                return MethodHandles.publicLookup().findStatic(declaringClass, name, type);
+            }
+            return MethodHandles.publicLookup().findVirtual(declaringClass, name, type);
+        }
+
+        private Method getMethod() {
+            Method method = this.method;
+            if (method != null) return method;
+
+            try {
+                return this.method = declaringClass.getMethod(name, parameterTypes);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException("Cannot find event subscriber. Offender: " + this, e);
+            }
+        }
+
+        /**
+         * Gets the fields of the line that lists this subscriber in the {@link EventIndex}.
+         */
+        private String[] toIndexFields() {
+            StringJoiner parameters = new StringJoiner(",");
+            StringJoiner bindings = new StringJoiner(",");
+            for (int i = 0; i < parameterTypes.length; i++) {
+                parameters.add(parameterTypes[i].getName());
+                if (i == 0) continue;
+
+                if (results[i]) {
+                    bindings.add("R");
+                } else if (unpacks[i] != null) {
+                    bindings.add("U:" + EventIndex.encode(unpacks[i]));
                 } else {
-                    arguments[i + offset] = prevResult;
+                    bindings.add("-");
                 }
             }
 
-            Object result = handle.invokeWithArguments(arguments);
-            return returnsValue ? result : prevResult;
+            StringJoiner generics = new StringJoiner(",");
+            for (Class<?> generic : this.generics) {
+                generics.add(generic != null ? generic.getName() : "?");
+            }
+
+            return new String[]{"subscriber", declaringClass.getName(), name, isStatic ? "1" : "0",
+                    returnType.getName(), parameters.toString(), phase.name(), receiveCanceled ? "1" : "0",
+                    clientOnly ? "1" : "0", serverOnly ? "1" : "0", generics.toString(), bindings.toString(),
+                    parallelSafe ? "1" : "0"};
+        }
+
+        @Override
+        public String toString() {
+            return declaringClass.getName() + "#" + name;
         }
 
     }
@@ -0,0 +1,290 @@
+package mail.core.event;
+
+import mail.api.event.EventPhase;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UnsupportedEncodingException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Reads the subscriber and property index generated at compile time by
+ * {@link mail.core.event.processor.EventIndexProcessor}, so the classes it covers don't need to be scanned through
+ * reflection when they are registered or posted for the first time.
+ * Every class loader's indices are read once, the first time one of its classes is looked up.
+ * Classes that aren't indexed are looked up in the installed {@link EventMetadataCache} instead, if there is one.
+ */
+final class EventIndex {
+
+    static final String LOCATION = "META-INF/mail/event-index";
+    static final int VERSION = 1;
+
+    private static final Map<ClassLoader, Map<String, Entry>> INDICES = new WeakHashMap<>();
+
+    private EventIndex() {
+    }
+
+    /**
+     * Gets the index or cache entry of the given class, or null if it needs to be scanned for the given kinds of
+     * members.
+     */
+    static Entry find(Class<?> type, int kinds) {
+        Entry entry = get(type);
+        if (entry != null) return entry;
+
+        EventMetadataCache cache = EventMetadataCache.getInstalled();
+        return cache != null ? cache.get(type, kinds) : null;
+    }
+
+    /**
+     * Stores the members of the given kinds that were found by scanning a class in the installed cache, if there is
+     * one.
+     */
+    static void cache(Class<?> type, int kinds, List<String[]> subscribers, List<String[]> properties) {
+        EventMetadataCache cache = EventMetadataCache.getInstalled();
+        if (cache != null) {
+            cache.put(type, kinds, subscribers, properties);
+        }
+    }
+
+    static boolean isCaching() {
+        return EventMetadataCache.getInstalled() != null;
+    }
+
+    /**
+     * Gets the index entry of the given class, or null if it wasn't compiled with the index processor.
+     */
+    static Entry get(Class<?> type) {
+        ClassLoader loader = type.getClassLoader();
+        if (loader == null) return null;
+
+        Map<String, Entry> index;
+        synchronized (INDICES) {
+            index = INDICES.get(loader);
+            if (index == null) {
+                index = read(loader);
+                INDICES.put(loader, index);
+            }
+        }
+        return index.get(type.getName());
+    }
+
+    private static Map<String, Entry> read(ClassLoader loader) {
+        Map<String, Entry> index = new HashMap<>();
+        try {
+            Enumeration<URL> resources = loader.getResources(LOCATION);
+            while (resources.hasMoreElements()) {
+                read(resources.nextElement(), index);
+            }
+        } catch (IOException e) {
+            // Unreadable indices are ignored, since every class can still be scanned
+        }
+        return index.isEmpty() ? Collections.emptyMap() : index;
+    }
+
+    private static void read(URL resource, Map<String, Entry> index) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.openStream(), StandardCharsets.UTF_8))) {
+            String header = reader.readLine();
+            if (header == null || !header.equals("# MAIL event index v" + VERSION)) return;
+
+            Entry entry = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+
+                String[] fields = line.split("\t", -1);
+                switch (fields[0]) {
+                    case "class":
+                        entry = new Entry();
+                        // If a class shows up in more than one index, the first one on the classpath wins
+                        index.putIfAbsent(fields[1], entry);
+                        break;
+                    case "subscriber":
+                    case "property":
+                        if (entry != null) {
+                            (fields[0].equals("subscriber") ? entry.subscribers : entry.properties).add(fields);
+                        }
+                        break;
+                    default:
+                        // Unknown lines are skipped so newer processors can add to the format
+                        break;
+                }
+            }
+        }
+    }
+
+    private static Class<?> resolve(String name, ClassLoader loader) throws ClassNotFoundException {
+        switch (name) {
+            case "boolean":
+                return boolean.class;
+            case "byte":
+                return byte.class;
+            case "char":
+                return char.class;
+            case "short":
+                return short.class;
+            case "int":
+                return int.class;
+            case "long":
+                return long.class;
+            case "float":
+                return float.class;
+            case "double":
+                return double.class;
+            case "void":
+                return void.class;
+            default:
+                return Class.forName(name, false, loader);
+        }
+    }
+
+    private static Class<?>[] resolveAll(String names, ClassLoader loader, boolean wildcards) throws ClassNotFoundException {
+        if (names.isEmpty()) return new Class<?>[0];
+
+        String[] split = names.split(",");
+        Class<?>[] classes = new Class<?>[split.length];
+        for (int i = 0; i < split.length; i++) {
+            classes[i] = wildcards && split[i].equals("?") ? null : resolve(split[i], loader);
+        }
+        return classes;
+    }
+
+    /**
+     * Property names are URL-encoded in the index, since they may contain any character.
+     */
+    static String encode(String name) {
+        try {
+            return URLEncoder.encode(name, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String decode(String name) {
+        try {
+            return URLDecoder.decode(name, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    interface PropertySink {
+
+        void accept(String name, boolean mutable, MethodHandle handle);
+
+    }
+
+    /**
+     * The subscribers and properties of a single class, including the ones it inherits.
+     * Their classes are only resolved when they are needed, using the loader of the class they belong to.
+     * Index entries list every member of their class, while cache entries only list the kinds of members the class
+     * has been scanned for so far.
+     */
+    static final class Entry {
+
+        static final int STATIC_SUBSCRIBERS = 1;
+        static final int INSTANCE_SUBSCRIBERS = 2;
+        static final int PROPERTIES = 4;
+        static final int ALL = STATIC_SUBSCRIBERS | INSTANCE_SUBSCRIBERS | PROPERTIES;
+
+        private final int kinds;
+        // subscriber, declaring class, name, static, return type, parameter types, phase, receive canceled,
+        // client only, server only, generics, parameter bindings, parallel safe
+        private final List<String[]> subscribers;
+        // property, declaring class, name, return type, property name, mutable
+        private final List<String[]> properties;
+
+        private Entry() {
+            this(ALL, new ArrayList<>(), new ArrayList<>());
+        }
+
+        Entry(int kinds, List<String[]> subscribers, List<String[]> properties) {
+            this.kinds = kinds;
+            this.subscribers = subscribers;
+            this.properties = properties;
+        }
+
+        int getKinds() {
+            return kinds;
+        }
+
+        boolean covers(int kinds) {
+            return (this.kinds & kinds) == kinds;
+        }
+
+        List<String[]> getSubscribers() {
+            return subscribers;
+        }
+
+        List<String[]> getProperties() {
+            return properties;
+        }
+
+        /**
+         * Combines this entry with one for the same class that lists other kinds of members, preferring the other
+         * entry's members for the kinds both of them list.
+         */
+        Entry merge(Entry other) {
+            List<String[]> subscribers = new ArrayList<>(other.subscribers);
+            for (String[] fields : this.subscribers) {
+                int kind = fields[3].equals("1") ? STATIC_SUBSCRIBERS : INSTANCE_SUBSCRIBERS;
+                if (!other.covers(kind)) subscribers.add(fields);
+            }
+            return new Entry(kinds | other.kinds, subscribers,
+                    other.covers(PROPERTIES) ? other.properties : properties);
+        }
+
+        List<EventHandlerType.HandlerInfo> getHandlers(Class<?> type) throws ReflectiveOperationException {
+            ClassLoader loader = type.getClassLoader();
+            List<EventHandlerType.HandlerInfo> handlers = new ArrayList<>(subscribers.size());
+            for (String[] fields : subscribers) {
+                Class<?>[] parameterTypes = resolveAll(fields[5], loader, false);
+
+                // Each binding is R for the previous result, U: followed by the property name for unpacked
+                // properties, or - if the parameter isn't annotated
+                String[] bindings = fields[11].isEmpty() ? new String[0] : fields[11].split(",", -1);
+                boolean[] results = new boolean[parameterTypes.length];
+                String[] unpacks = new String[parameterTypes.length];
+                for (int i = 0; i < bindings.length && i + 1 < parameterTypes.length; i++) {
+                    results[i + 1] = bindings[i].equals("R");
+                    unpacks[i + 1] = bindings[i].startsWith("U:") ? decode(bindings[i].substring(2)) : null;
+                }
+
+                EventHandlerType.HandlerInfo info = new EventHandlerType.HandlerInfo(resolve(fields[1], loader),
+                        fields[2], fields[3].equals("1"), resolve(fields[4], loader), parameterTypes,
+                        EventPhase.valueOf(fields[6]), fields[7].equals("1"), fields[8].equals("1"),
+                        fields[9].equals("1"), resolveAll(fields[10], loader, true),
+                        // Indices generated before subscribers could be parallel-safe don't have the last field
+                        fields.length > 12 && fields[12].equals("1"), results, unpacks);
+                info.resolveHandle();
+                handlers.add(info);
+            }
+            return handlers;
+        }
+
+        void addProperties(Class<?> type, PropertySink sink) throws ReflectiveOperationException {
+            ClassLoader loader = type.getClassLoader();
+            for (String[] fields : properties) {
+                MethodHandle handle = MethodHandles.publicLookup().findVirtual(resolve(fields[1], loader), fields[2],
+                        MethodType.methodType(resolve(fields[3], loader)));
+                sink.accept(decode(fields[4]), fields[5].equals("1"), handle);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,436 @@
+package mail.core.event;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the subscribers and properties found by scanning classes through reflection in a binary file, so they don't
+ * need to be scanned again the next time the game starts. The bus only looks at it for classes that aren't covered by
+ * the {@link EventIndex}, and only while a cache is installed through {@link #install(EventMetadataCache)}.
+ * <p>
+ * Classes are keyed by their name and the hashes of the contents of the jars they and their supertypes were loaded
+ * from, or of their class files if they were loaded from a directory, since their entries include inherited members.
+ * Hashes are only computed again if a file's size or modification time has changed since they were stored, which
+ * makes checking the cache at startup cheap.
+ */
+public final class EventMetadataCache {
+
+    private static final int MAGIC = 0x4D41494C; // MAIL
+    private static final int VERSION = 2;
+    // Separates the hashes of the files a class and its supertypes come from in its key
+    private static final String HASH_SEPARATOR = "+";
+
+    private static volatile EventMetadataCache installed;
+
+    private final Path file;
+    // Every file classes were cached from, by path, including the ones that haven't been checked yet
+    private final Map<String, Source> sources = new ConcurrentHashMap<>();
+    // The hashes of the files that have been checked since the cache was opened
+    private final Map<String, String> checked = new ConcurrentHashMap<>();
+    // The jars and directories classes have been loaded from, by URL
+    private final Map<String, Location> locations = new ConcurrentHashMap<>();
+    // Keyed by the hashes of the class' files and its name
+    private final Map<String, EventIndex.Entry> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private EventMetadataCache(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Opens the cache stored in the given file. A cache that is missing, unreadable or in an older format is
+     * treated as empty, and overwritten when the cache is saved.
+     */
+    public static EventMetadataCache open(Path file) {
+        EventMetadataCache cache = new EventMetadataCache(file);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            cache.read(in);
+        } catch (NoSuchFileException e) {
+            // Nothing has been cached yet
+        } catch (IOException | RuntimeException e) {
+            cache.sources.clear();
+            cache.entries.clear();
+        }
+        return cache;
+    }
+
+    /**
+     * Makes the bus use the given cache for every class it scans from now on, or stop using one if it's null.
+     * Classes that have already been scanned are not affected.
+     */
+    public static void install(EventMetadataCache cache) {
+        installed = cache;
+    }
+
+    /**
+     * Gets the cache the bus is using, or null if there isn't one.
+     */
+    public static EventMetadataCache getInstalled() {
+        return installed;
+    }
+
+    /**
+     * Writes the cache back to its file, dropping the entries of files that have changed or no longer exist.
+     */
+    public void save() throws IOException {
+        Map<String, Source> retained = new HashMap<>();
+        for (Source source : sources.values()) {
+            String hash = checked.get(source.path);
+            if (hash != null ? hash.equals(source.hash) : source.isUnchanged()) {
+                retained.put(source.path, source);
+            }
+        }
+        Set<String> hashes = new HashSet<>();
+        for (Source source : retained.values()) {
+            hashes.add(source.hash);
+        }
+
+        Path parent = file.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                write(out, retained.values(), hashes);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Gets how many times the bus found what it was looking for in the cache since it was opened.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Gets how many times the bus had to scan a class because it wasn't in the cache since it was opened.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    EventIndex.Entry get(Class<?> type, int kinds) {
+        String key = getKey(type);
+        if (key == null) return null;
+
+        EventIndex.Entry entry = entries.get(key);
+        if (entry != null && entry.covers(kinds)) {
+            hits.increment();
+            return entry;
+        }
+        misses.increment();
+        return null;
+    }
+
+    void put(Class<?> type, int kinds, List<String[]> subscribers, List<String[]> properties) {
+        String key = getKey(type);
+        if (key == null) return;
+
+        entries.merge(key, new EventIndex.Entry(kinds, subscribers, properties), EventIndex.Entry::merge);
+    }
+
+    /**
+     * Gets the key a class is cached under, or null if it can't be cached because it or one of its supertypes doesn't
+     * come from a file.
+     */
+    private String getKey(Class<?> type) {
+        Set<String> hashes = new LinkedHashSet<>();
+        for (Class<?> current : getSupertypes(type)) {
+            String hash = getHash(current);
+            if (hash != null) {
+                hashes.add(hash);
+            } else if (current == type || current.getClassLoader() != null) {
+                // Classes of the JDK can't change under the cache, but anything else without a file could
+                return null;
+            }
+        }
+        return String.join(HASH_SEPARATOR, hashes) + "/" + type.getName();
+    }
+
+    /**
+     * Gets a class and all of its superclasses and interfaces, starting with the class itself.
+     */
+    private static Set<Class<?>> getSupertypes(Class<?> type) {
+        Set<Class<?>> supertypes = new LinkedHashSet<>();
+        Deque<Class<?>> pending = new ArrayDeque<>();
+        pending.add(type);
+        while (!pending.isEmpty()) {
+            Class<?> current = pending.poll();
+            if (!supertypes.add(current)) continue;
+
+            if (current.getSuperclass() != null) {
+                pending.add(current.getSuperclass());
+            }
+            Collections.addAll(pending, current.getInterfaces());
+        }
+        return supertypes;
+    }
+
+    /**
+     * Gets the hash of the file a class was loaded from, or null if it doesn't come from a file that can be read.
+     */
+    private String getHash(Class<?> type) {
+        CodeSource codeSource = type.getProtectionDomain().getCodeSource();
+        URL location = codeSource != null ? codeSource.getLocation() : null;
+        if (location == null) return null;
+
+        Location resolved = locations.computeIfAbsent(location.toString(), l -> Location.resolve(location));
+        if (resolved == Location.NONE) return null;
+
+        // Classes loaded from directories don't have a jar, so their own class file is hashed instead
+        String path = resolved.directory
+                ? resolved.path + File.separatorChar + type.getName().replace('.', File.separatorChar) + ".class"
+                : resolved.path;
+        String hash = checked.computeIfAbsent(path, this::check);
+        return hash.isEmpty() ? null : hash;
+    }
+
+    /**
+     * Gets the hash of a file, only reading it if it changed since it was cached, or an empty string if it can't be
+     * read.
+     */
+    private String check(String path) {
+        Source source = sources.get(path);
+        if (source != null && source.isUnchanged()) return source.hash;
+
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(Paths.get(path), BasicFileAttributes.class);
+            source = new Source(path, attributes.size(), attributes.lastModifiedTime().toMillis(), hash(Paths.get(path)));
+        } catch (IOException e) {
+            return "";
+        }
+        sources.put(path, source);
+        return source.hash;
+    }
+
+    private static String hash(Path path) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(path)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+
+        StringBuilder hash = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hash.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hash.toString();
+    }
+
+    // The file starts with a table of every string in it, which the rest refers to by index, since the same class
+    // names show up over and over again
+
+    private void read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) return;
+
+        String[] strings = new String[in.readInt()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = in.readUTF();
+        }
+
+        int sourceCount = in.readInt();
+        for (int i = 0; i < sourceCount; i++) {
+            Source source = new Source(strings[in.readInt()], in.readLong(), in.readLong(), strings[in.readInt()]);
+            sources.put(source.path, source);
+        }
+
+        int entryCount = in.readInt();
+        for (int i = 0; i < entryCount; i++) {
+            String key = strings[in.readInt()] + "/" + strings[in.readInt()];
+            int kinds = in.readUnsignedByte();
+            List<String[]> subscribers = readLines(in, strings);
+            List<String[]> properties = readLines(in, strings);
+            entries.put(key, new EventIndex.Entry(kinds, subscribers, properties));
+        }
+    }
+
+    private static List<String[]> readLines(DataInputStream in, String[] strings) throws IOException {
+        int count = in.readInt();
+        List<String[]> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String[] fields = new String[in.readUnsignedByte()];
+            for (int j = 0; j < fields.length; j++) {
+                fields[j] = strings[in.readInt()];
+            }
+            lines.add(fields);
+        }
+        return lines;
+    }
+
+    private void write(DataOutputStream out, Iterable<Source> sources, Set<String> hashes) throws IOException {
+        Map<String, Integer> strings = new HashMap<>();
+        List<String> table = new ArrayList<>();
+        List<Map.Entry<String, EventIndex.Entry>> retained = new ArrayList<>();
+
+        for (Source source : sources) {
+            intern(source.path, strings, table);
+            intern(source.hash, strings, table);
+        }
+        for (Map.Entry<String, EventIndex.Entry> entry : entries.entrySet()) {
+            int split = entry.getKey().indexOf('/');
+            // Entries are only kept if none of the files their class and its supertypes come from have changed
+            String keyHashes = entry.getKey().substring(0, split);
+            if (!hashes.containsAll(Arrays.asList(keyHashes.split(Pattern.quote(HASH_SEPARATOR))))) continue;
+
+            retained.add(entry);
+            intern(keyHashes, strings, table);
+            intern(entry.getKey().substring(split + 1), strings, table);
+            for (String[] fields : entry.getValue().getSubscribers()) {
+                for (String field : fields) intern(field, strings, table);
+            }
+            for (String[] fields : entry.getValue().getProperties()) {
+                for (String field : fields) intern(field, strings, table);
+            }
+        }
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(table.size());
+        for (String string : table) {
+            out.writeUTF(string);
+        }
+
+        List<Source> sourceList = new ArrayList<>();
+        sources.forEach(sourceList::add);
+        out.writeInt(sourceList.size());
+        for (Source source : sourceList) {
+            out.writeInt(strings.get(source.path));
+            out.writeLong(source.size);
+            out.writeLong(source.lastModified);
+            out.writeInt(strings.get(source.hash));
+        }
+
+        out.writeInt(retained.size());
+        for (Map.Entry<String, EventIndex.Entry> entry : retained) {
+            int split = entry.getKey().indexOf('/');
+            out.writeInt(strings.get(entry.getKey().substring(0, split)));
+            out.writeInt(strings.get(entry.getKey().substring(split + 1)));
+            out.writeByte(entry.getValue().getKinds());
+            writeLines(out, entry.getValue().getSubscribers(), strings);
+            writeLines(out, entry.getValue().getProperties(), strings);
+        }
+    }
+
+    private static void writeLines(DataOutputStream out, List<String[]> lines, Map<String, Integer> strings) throws IOException {
+        out.writeInt(lines.size());
+        for (String[] fields : lines) {
+            out.writeByte(fields.length);
+            for (String field : fields) {
+                out.writeInt(strings.get(field));
+            }
+        }
+    }
+
+    private static void intern(String string, Map<String, Integer> strings, List<String> table) {
+        if (strings.putIfAbsent(string, table.size()) == null) {
+            table.add(string);
+        }
+    }
+
+    private static final class Location {
+
+        private static final Location NONE = new Location(null, false);
+
+        private final String path;
+        private final boolean directory;
+
+        private Location(String path, boolean directory) {
+            this.path = path;
+            this.directory = directory;
+        }
+
+        private static Location resolve(URL location) {
+            if (!location.getProtocol().equals("file")) return NONE;
+
+            try {
+                Path path = Paths.get(location.toURI());
+                return new Location(path.toString(), Files.isDirectory(path));
+            } catch (URISyntaxException | RuntimeException e) {
+                return NONE;
+            }
+        }
+
+    }
+
+    /**
+     * A file classes were cached from, as it was when it was hashed.
+     */
+    private static final class Source {
+
+        private final String path;
+        private final long size;
+        private final long lastModified;
+        private final String hash;
+
+        private Source(String path, long size, long lastModified, String hash) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+
+        private boolean isUnchanged() {
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(Paths.get(path), BasicFileAttributes.class);
+                return attributes.size() == size && attributes.lastModifiedTime().toMillis() == lastModified;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,217 @@
+package mail.core.event;
+
+import mail.api.event.Event;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Dispatch metrics collected by an {@link EventBusImpl} while they are enabled through
+ * {@link EventBusImpl#enableMetrics()}.
+ * All counters are striped, so recording doesn't allocate or contend between threads, and only the buses' dispatch
+ * tables hold on to them, so nothing is looked up while posting.
+ */
+public final class EventMetrics {
+
+    /**
+     * Latencies are recorded into power of two buckets of nanoseconds, so bucket {@code i} holds the invocations
+     * that took less than {@code 2^i} nanoseconds, and more than the previous bucket. The last bucket holds the rest.
+     */
+    public static final int LATENCY_BUCKETS = 40;
+
+    private final Map<EventType, LongAdder> posts = new ConcurrentHashMap<>();
+    private final Map<Method, HandlerCounters> handlers = new ConcurrentHashMap<>();
+
+    EventMetrics() {
+    }
+
+    LongAdder getPostCounter(EventType type) {
+        return posts.computeIfAbsent(type, t -> new LongAdder());
+    }
+
+    HandlerCounters getHandlerCounters(EventHandlerType.EventHandler handler) {
+        return handlers.computeIfAbsent(handler.getMethod(), m -> new HandlerCounters());
+    }
+
+    /**
+     * Resets all the metrics collected so far.
+     * Counters that are being recorded into concurrently may keep some of those recordings.
+     */
+    public void reset() {
+        for (LongAdder counter : posts.values()) {
+            counter.reset();
+        }
+        for (HandlerCounters counters : handlers.values()) {
+            counters.reset();
+        }
+    }
+
+    /**
+     * Takes a snapshot of the metrics collected so far. Counters are read one at a time, so a snapshot taken while
+     * events are being posted may be slightly inconsistent.
+     */
+    public Snapshot snapshot() {
+        Map<Class<? extends Event>, Long> postCounts = new LinkedHashMap<>();
+        for (Map.Entry<EventType, LongAdder> entry : posts.entrySet()) {
+            postCounts.put(entry.getKey().getClazz(), entry.getValue().sum());
+        }
+
+        List<HandlerMetrics> handlerMetrics = new ArrayList<>();
+        for (Map.Entry<Method, HandlerCounters> entry : handlers.entrySet()) {
+            handlerMetrics.add(entry.getValue().snapshot(entry.getKey()));
+        }
+        handlerMetrics.sort((a, b) -> Long.compare(b.getTotalNanos(), a.getTotalNanos()));
+
+        return new Snapshot(Collections.unmodifiableMap(postCounts), Collections.unmodifiableList(handlerMetrics));
+    }
+
+    static final class HandlerCounters {
+
+        // The invocation count is the sum of the histogram, so it doesn't need its own counter
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder[] latencies = new LongAdder[LATENCY_BUCKETS];
+
+        private HandlerCounters() {
+            for (int i = 0; i < latencies.length; i++) {
+                latencies[i] = new LongAdder();
+            }
+        }
+
+        void record(long nanos) {
+            totalNanos.add(nanos);
+            latencies[Math.min(64 - Long.numberOfLeadingZeros(nanos), LATENCY_BUCKETS - 1)].increment();
+        }
+
+        private void reset() {
+            totalNanos.reset();
+            for (LongAdder bucket : latencies) {
+                bucket.reset();
+            }
+        }
+
+        private HandlerMetrics snapshot(Method method) {
+            long[] histogram = new long[LATENCY_BUCKETS];
+            long invocations = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                invocations += histogram[i] = latencies[i].sum();
+            }
+            return new HandlerMetrics(method, invocations, totalNanos.sum(), histogram);
+        }
+
+    }
+
+    public static final class Snapshot {
+
+        private final Map<Class<? extends Event>, Long> postCounts;
+        private final List<HandlerMetrics> handlers;
+
+        private Snapshot(Map<Class<? extends Event>, Long> postCounts, List<HandlerMetrics> handlers) {
+            this.postCounts = postCounts;
+            this.handlers = handlers;
+        }
+
+        /**
+         * Gets how many times each event type has been posted, not counting its subtypes.
+         */
+        public Map<Class<? extends Event>, Long> getPostCounts() {
+            return postCounts;
+        }
+
+        public long getPostCount(Class<? extends Event> type) {
+            Long count = postCounts.get(type);
+            return count != null ? count : 0;
+        }
+
+        /**
+         * Gets the metrics of every handler that has been dispatched to, slowest first.
+         */
+        public List<HandlerMetrics> getHandlers() {
+            return handlers;
+        }
+
+        /**
+         * Gets the metrics of the handler declared by the given method, or null if it hasn't been dispatched to.
+         */
+        public HandlerMetrics getHandler(Method method) {
+            for (HandlerMetrics handler : handlers) {
+                if (handler.getMethod().equals(method)) return handler;
+            }
+            return null;
+        }
+
+    }
+
+    public static final class HandlerMetrics {
+
+        private final Method method;
+        private final long invocations;
+        private final long totalNanos;
+        private final long[] histogram;
+
+        private HandlerMetrics(Method method, long invocations, long totalNanos, long[] histogram) {
+            this.method = method;
+            this.invocations = invocations;
+            this.totalNanos = totalNanos;
+            this.histogram = histogram;
+        }
+
+        public Method getMethod() {
+            return method;
+        }
+
+        public Class<?> getDeclaringClass() {
+            return method.getDeclaringClass();
+        }
+
+        public long getInvocations() {
+            return invocations;
+        }
+
+        public long getTotalNanos() {
+            return totalNanos;
+        }
+
+        public double getMeanNanos() {
+            return invocations == 0 ? 0 : (double) totalNanos / invocations;
+        }
+
+        /**
+         * Gets the number of invocations that fell into each latency bucket.
+         *
+         * @see #LATENCY_BUCKETS
+         */
+        public long[] getHistogram() {
+            return histogram.clone();
+        }
+
+        /**
+         * Gets an upper bound, in nanoseconds, for the latency below which the given fraction of invocations fell.
+         * This is only as precise as the histogram's power of two buckets.
+         */
+        public long getPercentileNanos(double percentile) {
+            long target = (long) Math.ceil(invocations * percentile);
+            long seen = 0;
+            for (int i = 0; i < histogram.length; i++) {
+                seen += histogram[i];
+                if (seen >= target && seen > 0) {
+                    return i == histogram.length - 1 ? Long.MAX_VALUE : 1L << i;
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            return method.getDeclaringClass().getName() + "#" + method.getName() + " (" + invocations
+                    + " invocations, " + totalNanos + "ns total)";
+        }
+
+    }
+
+}
@@ -0,0 +1,241 @@
+package mail.core.event;
+
+import mail.api.event.EventPhase;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A trace written by an {@link EventTraceRecorder}, read back into memory.
+ */
+public final class EventTrace {
+
+    private static final EventPhase[] PHASES = EventPhase.values();
+
+    private final long startMillis;
+    private final List<Post> posts;
+
+    private EventTrace(long startMillis, List<Post> posts) {
+        this.startMillis = startMillis;
+        this.posts = posts;
+    }
+
+    /**
+     * Reads a trace that was written by a recorder that has been closed.
+     *
+     * @throws IOException if the file can't be read or isn't an event trace
+     */
+    public static EventTrace read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < EventTraceRecorder.HEADER_SIZE || buffer.getInt() != EventTraceRecorder.MAGIC) {
+                throw new IOException("Not an event trace: " + file);
+            }
+            if (buffer.getInt() != EventTraceRecorder.VERSION) {
+                throw new IOException("Unsupported event trace version: " + file);
+            }
+            int chunkSize = buffer.getInt();
+            long startMillis = buffer.getLong();
+            long length = buffer.getLong();
+            if (length > buffer.remaining()) {
+                throw new IOException("Truncated event trace: " + file);
+            }
+
+            buffer.limit((int) (EventTraceRecorder.HEADER_SIZE + length));
+            return new EventTrace(startMillis, readRecords(buffer, chunkSize));
+        }
+    }
+
+    private static List<Post> readRecords(ByteBuffer buffer, int chunkSize) throws IOException {
+        Map<Integer, String> classes = new HashMap<>();
+        Map<Integer, String> handlers = new HashMap<>();
+        Map<Integer, String> threads = new HashMap<>();
+        // Invocations are recorded before the post they belong to, which takes the last ones of its thread. Whatever
+        // is left belongs to a post that is still running, like an outer post or a manual one in between its phases.
+        Map<Integer, Deque<Invocation>> pending = new HashMap<>();
+        List<Post> posts = new ArrayList<>();
+
+        while (buffer.hasRemaining()) {
+            byte kind = buffer.get();
+            switch (kind) {
+                case EventTraceRecorder.END_OF_CHUNK:
+                    int offset = buffer.position() - EventTraceRecorder.HEADER_SIZE;
+                    int next = EventTraceRecorder.HEADER_SIZE + (offset + chunkSize - 1) / chunkSize * chunkSize;
+                    buffer.position(Math.min(next, buffer.limit()));
+                    break;
+                case EventTraceRecorder.CLASS:
+                    classes.put(buffer.getInt(), readName(buffer));
+                    break;
+                case EventTraceRecorder.HANDLER:
+                    handlers.put(buffer.getInt(), readName(buffer));
+                    break;
+                case EventTraceRecorder.THREAD:
+                    threads.put(buffer.getInt(), readName(buffer));
+                    break;
+                case EventTraceRecorder.INVOCATION: {
+                    String handler = handlers.get(buffer.getInt());
+                    int thread = buffer.getInt();
+                    EventPhase phase = PHASES[buffer.get()];
+                    long nanos = buffer.getLong();
+                    pending.computeIfAbsent(thread, t -> new ArrayDeque<>()).push(new Invocation(handler, phase, nanos));
+                    break;
+                }
+                case EventTraceRecorder.POST: {
+                    String eventClass = classes.get(buffer.getInt());
+                    int thread = buffer.getInt();
+                    int depth = buffer.get() & 0xFF;
+                    long start = buffer.getLong();
+                    long duration = buffer.getLong();
+                    int phases = buffer.get() & 0xFF;
+                    int handlerCount = buffer.getInt();
+
+                    Deque<Invocation> threadPending = pending.getOrDefault(thread, new ArrayDeque<>());
+                    Invocation[] invocations = new Invocation[Math.min(handlerCount, threadPending.size())];
+                    for (int i = invocations.length - 1; i >= 0; i--) {
+                        invocations[i] = threadPending.pop();
+                    }
+
+                    posts.add(new Post(eventClass, threads.get(thread), depth, start, duration,
+                            phases & ~EventTraceRecorder.CANCELED, (phases & EventTraceRecorder.CANCELED) != 0,
+                            Collections.unmodifiableList(Arrays.asList(invocations))));
+                    break;
+                }
+                default:
+                    throw new IOException("Corrupt event trace, unknown record: " + kind);
+            }
+        }
+
+        // Posts are recorded when they end, but replayed in the order they started in
+        posts.sort((a, b) -> Long.compare(a.start, b.start));
+        return Collections.unmodifiableList(posts);
+    }
+
+    private static String readName(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    /**
+     * Gets every recorded post, including nested ones, in the order they started in.
+     */
+    public List<Post> getPosts() {
+        return posts;
+    }
+
+    public static final class Post {
+
+        private final String eventClass;
+        private final String thread;
+        private final int depth;
+        private final long start;
+        private final long duration;
+        private final int phases;
+        private final boolean canceled;
+        private final List<Invocation> invocations;
+
+        private Post(String eventClass, String thread, int depth, long start, long duration, int phases,
+                     boolean canceled, List<Invocation> invocations) {
+            this.eventClass = eventClass;
+            this.thread = thread;
+            this.depth = depth;
+            this.start = start;
+            this.duration = duration;
+            this.phases = phases;
+            this.canceled = canceled;
+            this.invocations = invocations;
+        }
+
+        public String getEventClass() {
+            return eventClass;
+        }
+
+        public String getThread() {
+            return thread;
+        }
+
+        /**
+         * Gets how many posts this one was nested in, which is 0 unless it was posted by a handler.
+         */
+        public int getDepth() {
+            return depth;
+        }
+
+        /**
+         * Gets when the post started, in nanoseconds since the recording started.
+         */
+        public long getStartNanos() {
+            return start;
+        }
+
+        public long getDurationNanos() {
+            return duration;
+        }
+
+        public boolean reachedPhase(EventPhase phase) {
+            return (phases & EventTraceRecorder.phaseMask(phase)) != 0;
+        }
+
+        public boolean wasCanceled() {
+            return canceled;
+        }
+
+        /**
+         * Gets the handlers that ran for this post, in the order they ran in.
+         */
+        public List<Invocation> getInvocations() {
+            return invocations;
+        }
+
+    }
+
+    public static final class Invocation {
+
+        private final String handler;
+        private final EventPhase phase;
+        private final long nanos;
+
+        private Invocation(String handler, EventPhase phase, long nanos) {
+            this.handler = handler;
+            this.phase = phase;
+            this.nanos = nanos;
+        }
+
+        /**
+         * Gets the name of the handler's method, as its declaring class followed by # and the method name.
+         */
+        public String getHandler() {
+            return handler;
+        }
+
+        public EventPhase getPhase() {
+            return phase;
+        }
+
+        /**
+         * Gets how long the handler took, including any events it posted.
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+    }
+
+}
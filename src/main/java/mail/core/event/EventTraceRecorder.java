@@ -0,0 +1,236 @@
+package mail.core.event;
+
+import mail.api.event.EventPhase;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Records every event posted to the buses it's attached to through {@link EventBusImpl#startTracing(EventTraceRecorder)}
+ * into a compact binary trace, which can be read back by {@link EventTrace} and replayed by {@link EventTraceReplay}.
+ * <p>
+ * The trace is appended to a memory-mapped file, one chunk at a time, so recording never blocks on I/O. Each post is
+ * recorded once it's done, with the class of the event, when it started, how long it took, the phases it went
+ * through and the time spent in every handler, which are recorded right before it.
+ * Recording takes a lock, so it's meant for profiling sessions, not to be left on.
+ */
+public final class EventTraceRecorder implements AutoCloseable {
+
+    static final int MAGIC = 0x4D54524B; // MTRK
+    static final int VERSION = 1;
+    // magic, version, chunk size, start time in epoch millis, length of the data after the header
+    static final int HEADER_SIZE = 4 + 4 + 4 + 8 + 8;
+    static final int LENGTH_OFFSET = 20;
+
+    // Every record starts with its kind, and a zero is what's left at the end of a chunk that had no room for more
+    static final byte END_OF_CHUNK = 0;
+    static final byte CLASS = 1;
+    static final byte HANDLER = 2;
+    static final byte THREAD = 3;
+    static final byte INVOCATION = 4;
+    static final byte POST = 5;
+
+    static final int CANCELED = 1 << 7;
+
+    private static final int DEFAULT_CHUNK_SIZE = 16 << 20;
+    // Class and handler names are the only records that can get long
+    private static final int MAX_NAME_LENGTH = 0xFFFF;
+
+    private final FileChannel channel;
+    private final int chunkSize;
+    private final long start = System.nanoTime();
+    private final MappedByteBuffer header;
+    private MappedByteBuffer chunk;
+    private long chunkOffset;
+    private boolean closed;
+
+    private final Map<Class<?>, Integer> classes = new HashMap<>();
+    private final Map<EventHandlerType.EventHandler, Integer> handlers = new HashMap<>();
+    private final ThreadLocal<ThreadState> threads = new ThreadLocal<>();
+    private int nextThread;
+
+    private EventTraceRecorder(FileChannel channel, int chunkSize) throws IOException {
+        this.channel = channel;
+        this.chunkSize = chunkSize;
+
+        this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(chunkSize).putLong(System.currentTimeMillis()).putLong(0);
+        this.chunkOffset = HEADER_SIZE;
+        this.chunk = channel.map(FileChannel.MapMode.READ_WRITE, chunkOffset, chunkSize);
+    }
+
+    /**
+     * Creates a trace file, replacing the one that was there, and starts recording into it.
+     */
+    public static EventTraceRecorder open(Path file) throws IOException {
+        return open(file, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a trace file, replacing the one that was there, and starts recording into it, growing the file by the
+     * given number of bytes at a time.
+     */
+    public static EventTraceRecorder open(Path file, int chunkSize) throws IOException {
+        if (chunkSize < 1024) {
+            throw new IllegalArgumentException("Trace chunks must be at least 1 KiB. Offender: " + chunkSize);
+        }
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        try {
+            return new EventTraceRecorder(channel, chunkSize);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the number of bytes recorded so far.
+     */
+    public synchronized long getLength() {
+        return chunkOffset - HEADER_SIZE + (chunk != null ? chunk.position() : 0);
+    }
+
+    /**
+     * Stops recording and writes down how long the trace is, so it can be read back.
+     * Posts that are still running are not recorded.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) return;
+
+        closed = true;
+        header.putLong(LENGTH_OFFSET, getLength());
+        header.force();
+        chunk.force();
+        chunk = null;
+        channel.close();
+    }
+
+    public synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Gets the time at which a post started, and keeps track of nested posts.
+     */
+    long beginPost() {
+        getThread().depth++;
+        return System.nanoTime();
+    }
+
+    /**
+     * Leaves a post without recording it, for manual posts in between their phases. The post is resumed by beginning
+     * it again.
+     */
+    void suspendPost() {
+        getThread().depth--;
+    }
+
+    synchronized void recordPost(Class<?> eventClass, long start, int phases, int handlers, boolean canceled) {
+        long duration = System.nanoTime() - start;
+        ThreadState thread = getThread();
+        thread.depth--;
+        if (closed) return;
+
+        int classId = getClassId(eventClass);
+        int threadId = getThreadId(thread);
+        ensureRoom(1 + 4 + 4 + 1 + 8 + 8 + 1 + 4);
+        chunk.put(POST).putInt(classId).putInt(threadId).put((byte) Math.min(thread.depth, 0xFF))
+                .putLong(start - this.start).putLong(duration).put((byte) (phases | (canceled ? CANCELED : 0)))
+                .putInt(handlers);
+    }
+
+    synchronized void recordInvocation(EventHandlerType.EventHandler handler, long nanos) {
+        if (closed) return;
+
+        int handlerId = getHandlerId(handler);
+        int threadId = getThreadId(getThread());
+        ensureRoom(1 + 4 + 4 + 1 + 8);
+        chunk.put(INVOCATION).putInt(handlerId).putInt(threadId).put((byte) handler.getPhase().ordinal())
+                .putLong(nanos);
+    }
+
+    static int phaseMask(EventPhase phase) {
+        return 1 << phase.ordinal();
+    }
+
+    static int phaseMask(EventPhase[] phases) {
+        int mask = 0;
+        for (EventPhase phase : phases) {
+            mask |= phaseMask(phase);
+        }
+        return mask;
+    }
+
+    private ThreadState getThread() {
+        ThreadState thread = threads.get();
+        if (thread == null) {
+            threads.set(thread = new ThreadState());
+        }
+        return thread;
+    }
+
+    private int getThreadId(ThreadState thread) {
+        if (thread.id == -1) {
+            thread.id = nextThread++;
+            writeName(THREAD, thread.id, Thread.currentThread().getName());
+        }
+        return thread.id;
+    }
+
+    private int getClassId(Class<?> eventClass) {
+        Integer id = classes.get(eventClass);
+        if (id == null) {
+            classes.put(eventClass, id = classes.size());
+            writeName(CLASS, id, eventClass.getName());
+        }
+        return id;
+    }
+
+    private int getHandlerId(EventHandlerType.EventHandler handler) {
+        Integer id = handlers.get(handler);
+        if (id == null) {
+            handlers.put(handler, id = handlers.size());
+            writeName(HANDLER, id, handler.toString());
+        }
+        return id;
+    }
+
+    private void writeName(byte kind, int id, String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, Math.min(MAX_NAME_LENGTH, chunkSize - 7));
+        ensureRoom(1 + 4 + 2 + length);
+        chunk.put(kind).putInt(id).putShort((short) length).put(bytes, 0, length);
+    }
+
+    /**
+     * Moves on to a new chunk if the current one doesn't have room for a record of the given size.
+     * The rest of the old chunk is left zeroed, which readers take as the end of the chunk.
+     */
+    private void ensureRoom(int size) {
+        if (chunk.remaining() >= size) return;
+
+        try {
+            chunkOffset += chunkSize;
+            chunk = channel.map(FileChannel.MapMode.READ_WRITE, chunkOffset, chunkSize);
+            header.putLong(LENGTH_OFFSET, chunkOffset - HEADER_SIZE);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not grow the event trace.", e);
+        }
+    }
+
+    private static final class ThreadState {
+
+        private int id = -1;
+        private int depth;
+
+    }
+
+}
@@ -0,0 +1,389 @@
+package mail.core.event;
+
+import mail.api.event.Event;
+import mail.api.event.EventBus;
+import mail.api.event.EventPhase;
+
+import mail.core.event.replay.CancellationHandler;
+import mail.core.event.replay.DefaultCanceledHandler;
+import mail.core.event.replay.DefaultHandler;
+import mail.core.event.replay.PostCanceledHandler;
+import mail.core.event.replay.PostHandler;
+import mail.core.event.replay.PreCanceledHandler;
+import mail.core.event.replay.PreHandler;
+import mail.core.event.replay.ReplayedCancelableEvent;
+import mail.core.event.replay.ReplayedEvent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Constructor;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drives a bus with the posts of an {@link EventTrace}, so dispatching can be compared on a real load profile without
+ * running a game.
+ * Every recorded event class is replaced with its own copy of {@link ReplayedEvent}, loaded again along with the
+ * synthetic handlers next to it by a class loader of its own, so that the replay keeps the mix of event classes the
+ * bus had to look up. Each of them gets as many synthetic handlers in every phase as the busiest of its posts had, and
+ * each of those handlers spins for as long as the handler it stands in for took.
+ * Posts only go through the phases they reached, so manual posts that skipped some are replayed as manual posts.
+ * Only top-level posts are replayed, since the time spent in nested posts is already part of the handlers that posted
+ * them.
+ */
+public final class EventTraceReplay {
+
+    private static final EventPhase[] PHASES = EventPhase.values();
+    // The synthetic handlers by phase, and by phase for the ones that receive canceled events
+    private static final Class<?>[] HANDLERS = {CancellationHandler.class, PreHandler.class, DefaultHandler.class,
+            PostHandler.class};
+    private static final Class<?>[] CANCELED_HANDLERS = {CancellationHandler.class, PreCanceledHandler.class,
+            DefaultCanceledHandler.class, PostCanceledHandler.class};
+
+    private final List<ReplayedClass> classes = new ArrayList<>();
+    private final List<SyntheticEvent> events = new ArrayList<>();
+    private final List<EventTrace.Post> posts = new ArrayList<>();
+
+    public EventTraceReplay(EventTrace trace) {
+        Map<String, ReplayedClass> byName = new HashMap<>();
+        List<ReplayedClass> postClasses = new ArrayList<>();
+        for (EventTrace.Post post : trace.getPosts()) {
+            if (post.getDepth() != 0) continue;
+
+            ReplayedClass replayed = byName.get(post.getEventClass());
+            if (replayed == null) {
+                replayed = new ReplayedClass(post.getEventClass());
+                byName.put(post.getEventClass(), replayed);
+                classes.add(replayed);
+            }
+            replayed.count(post);
+            postClasses.add(replayed);
+            posts.add(post);
+        }
+
+        for (ReplayedClass replayed : classes) {
+            replayed.load();
+        }
+        for (int i = 0; i < posts.size(); i++) {
+            events.add(postClasses.get(i).newEvent(posts.get(i)));
+        }
+    }
+
+    /**
+     * Gets the number of posts that will be replayed.
+     */
+    public int getPostCount() {
+        return events.size();
+    }
+
+    /**
+     * Replays the trace on the given bus, which should not have any listeners for the synthetic events yet.
+     *
+     * @param timed whether to wait between posts as long as the recorded ones were apart, instead of posting them
+     *              back to back
+     */
+    public Result replay(EventBusImpl eventBus, boolean timed) {
+        List<EventBusImpl.Registration> registrations = new ArrayList<>();
+        for (ReplayedClass replayed : classes) {
+            for (SyntheticListener listener : replayed.listeners) {
+                registrations.add(eventBus.subscribe(listener));
+            }
+        }
+
+        try {
+            long dispatchNanos = 0;
+            long recordedNanos = 0;
+            long first = posts.isEmpty() ? 0 : posts.get(0).getStartNanos();
+            long start = System.nanoTime();
+            for (int i = 0; i < events.size(); i++) {
+                EventTrace.Post post = posts.get(i);
+                if (timed) {
+                    spinUntil(start + post.getStartNanos() - first);
+                }
+
+                SyntheticEvent event = events.get(i);
+                long postStart = System.nanoTime();
+                event.post(eventBus);
+                dispatchNanos += System.nanoTime() - postStart;
+                recordedNanos += post.getDurationNanos();
+            }
+            return new Result(events.size(), System.nanoTime() - start, dispatchNanos, recordedNanos);
+        } finally {
+            eventBus.unregisterAll(registrations);
+        }
+    }
+
+    private static void spinUntil(long deadline) {
+        while (System.nanoTime() < deadline) {
+            // Sleeping is far too coarse for the gaps between posts
+        }
+    }
+
+    /**
+     * Replays a trace file on a new bus and prints how long it took.
+     * Usage: {@code EventTraceReplay <trace file> [--timed]}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("Usage: EventTraceReplay <trace file> [--timed]");
+            System.exit(1);
+        }
+
+        EventTraceReplay replay = new EventTraceReplay(EventTrace.read(Paths.get(args[0])));
+        boolean timed = args.length > 1 && args[1].equals("--timed");
+        System.out.println(replay.replay(new EventBusImpl(), timed));
+    }
+
+    public static final class Result {
+
+        private final int posts;
+        private final long elapsedNanos;
+        private final long dispatchNanos;
+        private final long recordedNanos;
+
+        private Result(int posts, long elapsedNanos, long dispatchNanos, long recordedNanos) {
+            this.posts = posts;
+            this.elapsedNanos = elapsedNanos;
+            this.dispatchNanos = dispatchNanos;
+            this.recordedNanos = recordedNanos;
+        }
+
+        public int getPosts() {
+            return posts;
+        }
+
+        /**
+         * Gets how long the whole replay took, including the time spent waiting between posts.
+         */
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+
+        /**
+         * Gets how long the replayed posts took, handlers included.
+         */
+        public long getDispatchNanos() {
+            return dispatchNanos;
+        }
+
+        /**
+         * Gets how long the same posts took when they were recorded.
+         */
+        public long getRecordedNanos() {
+            return recordedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return posts + " posts replayed in " + elapsedNanos / 1000 + "us, " + dispatchNanos / 1000
+                    + "us posting (" + recordedNanos / 1000 + "us when recorded)";
+        }
+
+    }
+
+    /**
+     * Keeps track of the posts of one recorded event class, and loads the synthetic event and handlers that stand in
+     * for it.
+     */
+    private static final class ReplayedClass {
+
+        private final String recordedName;
+        private boolean cancelable;
+        // Indexed by phase, the most handlers that ran for one post, and how many of those ran for canceled posts
+        private final int[] handlers = new int[PHASES.length];
+        private final int[] canceledHandlers = new int[PHASES.length];
+        private Constructor<? extends SyntheticEvent> constructor;
+        private final List<SyntheticListener> listeners = new ArrayList<>();
+
+        private ReplayedClass(String recordedName) {
+            this.recordedName = recordedName;
+        }
+
+        private void count(EventTrace.Post post) {
+            cancelable |= post.reachedPhase(EventPhase.CANCELLATION);
+            int[] counts = new int[PHASES.length];
+            for (EventTrace.Invocation invocation : post.getInvocations()) {
+                counts[invocation.getPhase().ordinal()]++;
+            }
+            for (int i = 0; i < counts.length; i++) {
+                handlers[i] = Math.max(handlers[i], counts[i]);
+                if (post.wasCanceled()) {
+                    canceledHandlers[i] = Math.max(canceledHandlers[i], counts[i]);
+                }
+            }
+        }
+
+        private void load() {
+            ReplayClassLoader loader = new ReplayClassLoader();
+            Class<?> event = cancelable ? ReplayedCancelableEvent.class : ReplayedEvent.class;
+            try {
+                constructor = loader.loadClass(event.getName()).asSubclass(SyntheticEvent.class)
+                        .getConstructor(EventTrace.Post.class);
+                for (EventPhase phase : PHASES) {
+                    int handlers = this.handlers[phase.ordinal()];
+                    // Handlers that receive canceled events come first, so they line up with the ones that ran for
+                    // canceled posts. Cancellation handlers run either way.
+                    int canceled = phase == EventPhase.CANCELLATION ? handlers : canceledHandlers[phase.ordinal()];
+                    addListeners(loader, CANCELED_HANDLERS[phase.ordinal()], 0, canceled);
+                    addListeners(loader, HANDLERS[phase.ordinal()], canceled, handlers);
+                }
+            } catch (ReflectiveOperationException | LinkageError e) {
+                throw new IllegalStateException("Could not load a synthetic event. Offender: " + recordedName, e);
+            }
+        }
+
+        private void addListeners(ReplayClassLoader loader, Class<?> handler, int from, int to)
+                throws ReflectiveOperationException {
+            if (from == to) return;
+
+            Constructor<? extends SyntheticListener> listenerConstructor = loader.loadClass(handler.getName())
+                    .asSubclass(SyntheticListener.class).getConstructor(int.class);
+            for (int i = from; i < to; i++) {
+                listeners.add(listenerConstructor.newInstance(i));
+            }
+        }
+
+        private SyntheticEvent newEvent(EventTrace.Post post) {
+            try {
+                return constructor.newInstance(post);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Could not create a synthetic event. Offender: " + recordedName, e);
+            }
+        }
+
+    }
+
+    /**
+     * Loads its own copy of the synthetic event and handlers, which are the classes in the package of
+     * {@link ReplayedEvent}, and leaves every other class to the loader of the replay.
+     */
+    private static final class ReplayClassLoader extends ClassLoader {
+
+        private static final String PACKAGE = ReplayedEvent.class.getPackage().getName() + ".";
+
+        private ReplayClassLoader() {
+            super(EventTraceReplay.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.startsWith(PACKAGE)) {
+                return super.loadClass(name, resolve);
+            }
+
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> type = findLoadedClass(name);
+                if (type == null) {
+                    type = findClass(name);
+                }
+                if (resolve) {
+                    resolveClass(type);
+                }
+                return type;
+            }
+        }
+
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            String file = name.replace('.', '/') + ".class";
+            try (InputStream in = getParent().getResourceAsStream(file)) {
+                if (in == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                byte[] buffer = new byte[4096];
+                for (int read; (read = in.read(buffer)) != -1; ) {
+                    bytes.write(buffer, 0, read);
+                }
+                return defineClass(name, bytes.toByteArray(), 0, bytes.size());
+            } catch (IOException e) {
+                throw new ClassNotFoundException(name, e);
+            }
+        }
+
+    }
+
+    /**
+     * Stands in for a recorded event, keeping how long each of its handlers took in every phase.
+     * Only meant to be extended by {@link ReplayedEvent}.
+     */
+    public abstract static class SyntheticEvent implements Event {
+
+        private final EventTrace.Post post;
+        // Indexed by phase and then by the position of the handler in that phase
+        private final long[][] work = new long[PHASES.length][];
+
+        protected SyntheticEvent(EventTrace.Post post) {
+            this.post = post;
+            int[] counts = new int[work.length];
+            for (EventTrace.Invocation invocation : post.getInvocations()) {
+                counts[invocation.getPhase().ordinal()]++;
+            }
+            for (int i = 0; i < work.length; i++) {
+                work[i] = new long[counts[i]];
+                counts[i] = 0;
+            }
+            for (EventTrace.Invocation invocation : post.getInvocations()) {
+                int phase = invocation.getPhase().ordinal();
+                work[phase][counts[phase]++] = invocation.getNanos();
+            }
+        }
+
+        private void post(EventBusImpl eventBus) {
+            if (post.reachedPhase(EventPhase.PRE) && post.reachedPhase(EventPhase.DEFAULT)
+                    && post.reachedPhase(EventPhase.POST)) {
+                eventBus.post(this);
+                return;
+            }
+
+            // A manual post that skipped phases, which are skipped here too
+            EventBus.PostedEvent posted = eventBus.postManually(this);
+            if (post.reachedPhase(EventPhase.PRE)) {
+                posted.firePre();
+            }
+            if (post.reachedPhase(EventPhase.DEFAULT)) {
+                posted.fireDefault();
+            }
+            if (post.reachedPhase(EventPhase.POST)) {
+                posted.firePost();
+            }
+        }
+
+        private void work(EventPhase phase, int handler) {
+            long[] phaseWork = work[phase.ordinal()];
+            if (handler < phaseWork.length) {
+                spinUntil(System.nanoTime() + phaseWork[handler]);
+            }
+        }
+
+    }
+
+    /**
+     * Does the work of the handler at the same position in one phase of a synthetic event.
+     * Only meant to be extended by the synthetic handlers next to {@link ReplayedEvent}, which have a single handler
+     * each that calls back into it.
+     */
+    public abstract static class SyntheticListener {
+
+        private final int index;
+
+        protected SyntheticListener(int index) {
+            this.index = index;
+        }
+
+        protected final void work(SyntheticEvent event, EventPhase phase) {
+            event.work(phase, index);
+        }
+
+        protected final boolean cancel(SyntheticEvent event, boolean canceled) {
+            event.work(EventPhase.CANCELLATION, index);
+            return canceled || event.post.wasCanceled();
+        }
+
+    }
+
+}
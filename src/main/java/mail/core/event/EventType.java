@@ -7,32 +7,57 @@ import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 final class EventType {
 
-    private static final Map<Class<? extends Event>, EventType> EVENT_TYPES = new IdentityHashMap<>();
+    private static final Map<Class<? extends Event>, EventType> EVENT_TYPES = new ConcurrentHashMap<>();
 
     static EventType of(Class<? extends Event> event) {
         EventType type = EVENT_TYPES.get(event);
         if (type != null) return type;
 
-        type = new EventType(event);
-        EVENT_TYPES.put(event, type);
-        return type;
+        return EVENT_TYPES.computeIfAbsent(event, EventType::new);
     }
 
+    // Guards the linking of new types into the hierarchy index
+    private static final Object HIERARCHY_LOCK = new Object();
+
     private final Class<? extends Event> type;
     private final Map<String, Property> properties = new HashMap<>();
 
+    private volatile EventType[] hierarchy;
+    private final Set<EventType> subtypes = ConcurrentHashMap.newKeySet();
+
     private EventType(Class<? extends Event> type) {
         this.type = type;
         findProperties();
     }
 
     private void findProperties() {
+        // Classes compiled with the event index processor, or cached by an earlier run, don't need to be scanned
+        EventIndex.Entry entry = EventIndex.find(type, EventIndex.Entry.PROPERTIES);
+        if (entry != null) {
+            try {
+                entry.addProperties(type, this::addProperty);
+                return;
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // The index is out of date, and may even refer to classes that can't be loaded anymore, so go
+                // through the class again
+                properties.clear();
+            }
+        }
+
+        List<String[]> cached = EventIndex.isCaching() ? new ArrayList<>() : null;
         for (Method method : type.getMethods()) {
             if (Modifier.isStatic(method.getModifiers())) continue;
 
@@ -45,41 +70,129 @@ final class EventType {
             }
 
             try {
-                MethodHandle handle = MethodHandles.publicLookup().unreflect(method);
-                properties.put(annotation.value(), new Property(handle, annotation.mutable()));
+                addProperty(annotation.value(), annotation.mutable(), MethodHandles.publicLookup().unreflect(method));
             } catch (IllegalAccessException e) {
                 throw new IllegalStateException("Cannot access event property. "
                         + "Offender: " + method.getDeclaringClass() + "#" + method.getName(), e);
             }
+            if (cached != null) {
+                cached.add(new String[]{"property", method.getDeclaringClass().getName(), method.getName(),
+                        method.getReturnType().getName(), EventIndex.encode(annotation.value()),
+                        annotation.mutable() ? "1" : "0"});
+            }
+        }
+
+        if (cached != null) {
+            EventIndex.cache(type, EventIndex.Entry.PROPERTIES, Collections.emptyList(), cached);
         }
     }
 
+    private void addProperty(String name, boolean mutable, MethodHandle handle) {
+        Property previous = properties.get(name);
+        int slot = previous != null ? previous.slot : properties.size();
+        properties.put(name, new Property(handle, mutable, slot));
+    }
+
     public Class<? extends Event> getClazz() {
         return type;
     }
 
+    /**
+     * Gets this type followed by all of its supertypes, closest first.
+     * The first call also links this type into the subtypes of all of them.
+     */
+    public EventType[] getHierarchy() {
+        EventType[] hierarchy = this.hierarchy;
+        if (hierarchy != null) return hierarchy;
+
+        synchronized (HIERARCHY_LOCK) {
+            if (this.hierarchy != null) return this.hierarchy;
+
+            Set<EventType> types = new LinkedHashSet<>();
+            Queue<Class<? extends Event>> queue = new ArrayDeque<>();
+            queue.add(type);
+            while (!queue.isEmpty()) {
+                Class<? extends Event> current = queue.poll();
+                if (!types.add(of(current))) continue;
+
+                for (Class<?> itf : current.getInterfaces()) {
+                    if (Event.class.isAssignableFrom(itf)) {
+                        queue.add((Class<? extends Event>) itf);
+                    }
+                }
+
+                Class<?> superclass = current.getSuperclass();
+                if (superclass != null && Event.class.isAssignableFrom(superclass)) {
+                    queue.add((Class<? extends Event>) superclass);
+                }
+            }
+
+            hierarchy = types.toArray(new EventType[0]);
+            for (EventType supertype : hierarchy) {
+                supertype.subtypes.add(this);
+            }
+            return this.hierarchy = hierarchy;
+        }
+    }
+
+    /**
+     * Gets all the types whose hierarchy has been computed and includes this type, including itself if it has.
+     */
+    public Set<EventType> getSubtypes() {
+        return subtypes;
+    }
+
     public Property getProperty(String name) {
         return properties.get(name);
     }
 
+    public int getPropertyCount() {
+        return properties.size();
+    }
+
     public boolean hasResult() {
         return Event.WithResult.class.isAssignableFrom(type);
     }
 
     static final class Property {
 
+        // Placeholder for cached null values, so they can be told apart from values that haven't been retrieved
+        private static final Object NULL = new Object();
+
         private final MethodHandle handle;
         private final boolean mutable;
+        private final int slot;
 
-        private Property(MethodHandle handle, boolean mutable) {
+        private Property(MethodHandle handle, boolean mutable, int slot) {
             this.handle = handle;
             this.mutable = mutable;
+            this.slot = slot;
         }
 
         Object get(Event event) throws Throwable {
             return handle.invoke(event);
         }
 
+        /**
+         * Gets the value of the property, caching it in the given slots if it's immutable.
+         * The slots array must have room for all the properties of the event type this property belongs to.
+         */
+        Object get(Event event, Object[] values) throws Throwable {
+            if (mutable) return get(event);
+
+            Object value = values[slot];
+            if (value == null) {
+                value = get(event);
+                values[slot] = value == null ? NULL : value;
+                return value;
+            }
+            return value == NULL ? null : value;
+        }
+
+        MethodHandle getHandle() {
+            return handle;
+        }
+
         boolean isMutable() {
             return mutable;
         }
@@ -0,0 +1,22 @@
+package mail.core.event;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an event subscriber as safe to run at the same time as any other subscriber of the same event, on any thread.
+ * When an event without a result that can't be canceled is posted, the subscribers of each phase marked with this are
+ * run concurrently on the common {@link java.util.concurrent.ForkJoinPool}, after the ones that aren't. The post
+ * still waits for all of them before moving on to the next phase.
+ * <p>
+ * Subscribers of other events are run one after another as usual. Subscribers that take in and return a result can't
+ * be marked with this.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface ParallelSafe {
+}
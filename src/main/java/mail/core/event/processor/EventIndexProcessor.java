@@ -0,0 +1,305 @@
+package mail.core.event.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+/**
+ * Generates an index of the event subscribers and properties of every class in a compilation, which the event bus
+ * reads instead of scanning those classes through reflection.
+ * Every class is listed, even if it has neither, so the bus can tell classes that have nothing to register apart from
+ * classes that weren't compiled with this processor. It never claims any annotations, so other processors still run.
+ */
+@SupportedAnnotationTypes("*")
+public class EventIndexProcessor extends AbstractProcessor {
+
+    private static final String LOCATION = "META-INF/mail/event-index";
+    private static final String HEADER = "# MAIL event index v1";
+
+    private static final String SUBSCRIBE = "mail.api.event.Event.Subscribe";
+    private static final String PROPERTY = "mail.api.event.Event.Property";
+    private static final String UNPACK = "mail.api.event.Event.Unpack";
+    private static final String RESULT = "mail.api.event.Event.Result";
+    private static final String CLIENT_ONLY = "mail.api.annotations.ClientOnly";
+    private static final String SERVER_ONLY = "mail.api.annotations.ServerOnly";
+    private static final String PARALLEL_SAFE = "mail.core.event.ParallelSafe";
+
+    // Sorted so the generated index doesn't depend on the order classes are compiled in
+    private final Map<String, List<String>> index = new TreeMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            write();
+            return false;
+        }
+
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            indexType(type);
+        }
+        return false;
+    }
+
+    private void indexType(TypeElement type) {
+        List<String> lines = new ArrayList<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+            // Only public methods are visible to the bus, just like with Class#getMethods()
+            if (!method.getModifiers().contains(Modifier.PUBLIC)) continue;
+
+            AnnotationMirror subscribe = findAnnotation(method, SUBSCRIBE);
+            if (subscribe != null) {
+                // Deferred subscribers only apply to the methods that inherit the annotation, not the ones declaring it
+                AnnotationMirror direct = getAnnotation(method, SUBSCRIBE);
+                if (direct == null || !getBoolean(subscribe, "deferred") || !getBoolean(direct, "deferred")) {
+                    lines.add(subscriberLine(method, subscribe));
+                }
+            }
+
+            AnnotationMirror property = findAnnotation(method, PROPERTY);
+            if (property != null && !method.getModifiers().contains(Modifier.STATIC)) {
+                if (!method.getParameters().isEmpty()) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                            "Methods marked as event properties cannot take in parameters.", method);
+                    continue;
+                }
+                lines.add(propertyLine(method, property));
+            }
+        }
+        index.put(binaryName(type), lines);
+
+        for (TypeElement member : ElementFilter.typesIn(type.getEnclosedElements())) {
+            indexType(member);
+        }
+    }
+
+    private String subscriberLine(ExecutableElement method, AnnotationMirror subscribe) {
+        StringJoiner parameters = new StringJoiner(",");
+        StringJoiner bindings = new StringJoiner(",");
+        List<? extends VariableElement> params = method.getParameters();
+        for (int i = 0; i < params.size(); i++) {
+            VariableElement param = params.get(i);
+            parameters.add(binaryName(param.asType()));
+            if (i == 0) continue;
+
+            AnnotationMirror unpack = getAnnotation(param, UNPACK);
+            if (getAnnotation(param, RESULT) != null) {
+                bindings.add("R");
+            } else if (unpack != null) {
+                bindings.add("U:" + encode((String) getValue(unpack, "value")));
+            } else {
+                bindings.add("-");
+            }
+        }
+
+        StringJoiner generics = new StringJoiner(",");
+        if (!params.isEmpty() && params.get(0).asType().getKind() == TypeKind.DECLARED) {
+            for (TypeMirror argument : ((DeclaredType) params.get(0).asType()).getTypeArguments()) {
+                generics.add(genericName(argument));
+            }
+        }
+
+        return String.join("\t", "subscriber",
+                binaryName((TypeElement) method.getEnclosingElement()),
+                method.getSimpleName().toString(),
+                flag(method.getModifiers().contains(Modifier.STATIC)),
+                binaryName(method.getReturnType()),
+                parameters.toString(),
+                ((VariableElement) getValue(subscribe, "phase")).getSimpleName().toString(),
+                flag(getBoolean(subscribe, "receiveCanceled")),
+                flag(findAnnotation(method, CLIENT_ONLY) != null),
+                flag(findAnnotation(method, SERVER_ONLY) != null),
+                generics.toString(),
+                bindings.toString(),
+                flag(findAnnotation(method, PARALLEL_SAFE) != null));
+    }
+
+    private String propertyLine(ExecutableElement method, AnnotationMirror property) {
+        return String.join("\t", "property",
+                binaryName((TypeElement) method.getEnclosingElement()),
+                method.getSimpleName().toString(),
+                binaryName(method.getReturnType()),
+                encode((String) getValue(property, "value")),
+                flag(getBoolean(property, "mutable")));
+    }
+
+    private void write() {
+        if (index.isEmpty()) return;
+
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", LOCATION);
+            try (Writer writer = new OutputStreamWriter(file.openOutputStream(), StandardCharsets.UTF_8)) {
+                writer.write(HEADER + "\n");
+                for (Map.Entry<String, List<String>> entry : index.entrySet()) {
+                    writer.write("class\t" + entry.getKey() + "\n");
+                    for (String line : entry.getValue()) {
+                        writer.write(line + "\n");
+                    }
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not write the event index: " + e);
+        }
+    }
+
+    /**
+     * Finds an annotation on a method or, like the bus does at runtime, on the methods it overrides in superclasses.
+     */
+    private AnnotationMirror findAnnotation(ExecutableElement method, String annotation) {
+        AnnotationMirror mirror = getAnnotation(method, annotation);
+        if (mirror != null) return mirror;
+
+        TypeElement type = (TypeElement) method.getEnclosingElement();
+        while (type.getSuperclass().getKind() == TypeKind.DECLARED) {
+            type = (TypeElement) ((DeclaredType) type.getSuperclass()).asElement();
+            for (ExecutableElement superMethod : ElementFilter.methodsIn(type.getEnclosedElements())) {
+                if (sameSignature(method, superMethod)) {
+                    mirror = getAnnotation(superMethod, annotation);
+                    if (mirror != null) return mirror;
+                }
+            }
+        }
+        return null;
+    }
+
+    private boolean sameSignature(ExecutableElement a, ExecutableElement b) {
+        if (!a.getSimpleName().equals(b.getSimpleName()) || a.getParameters().size() != b.getParameters().size()) {
+            return false;
+        }
+        for (int i = 0; i < a.getParameters().size(); i++) {
+            TypeMirror typeA = processingEnv.getTypeUtils().erasure(a.getParameters().get(i).asType());
+            TypeMirror typeB = processingEnv.getTypeUtils().erasure(b.getParameters().get(i).asType());
+            if (!processingEnv.getTypeUtils().isSameType(typeA, typeB)) return false;
+        }
+        return true;
+    }
+
+    private static AnnotationMirror getAnnotation(Element element, String annotation) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            Element type = mirror.getAnnotationType().asElement();
+            if (((TypeElement) type).getQualifiedName().contentEquals(annotation)) return mirror;
+        }
+        return null;
+    }
+
+    private Object getValue(AnnotationMirror annotation, String name) {
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values =
+                processingEnv.getElementUtils().getElementValuesWithDefaults(annotation);
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) return entry.getValue().getValue();
+        }
+        return null;
+    }
+
+    private boolean getBoolean(AnnotationMirror annotation, String name) {
+        return Boolean.TRUE.equals(getValue(annotation, name));
+    }
+
+    /**
+     * Gets the name of the class a generic argument resolves to at runtime, or ? if it matches anything.
+     */
+    private String genericName(TypeMirror type) {
+        if (type.getKind() == TypeKind.DECLARED) {
+            return binaryName(type);
+        } else if (type.getKind() == TypeKind.ARRAY) {
+            TypeMirror component = ((ArrayType) type).getComponentType();
+            while (component.getKind() == TypeKind.ARRAY) {
+                component = ((ArrayType) component).getComponentType();
+            }
+            // Arrays of parameterized types are generic array types, which don't match anything specific
+            boolean generic = component.getKind() == TypeKind.DECLARED
+                    && !((DeclaredType) component).getTypeArguments().isEmpty();
+            return generic ? "?" : binaryName(type);
+        }
+        return "?";
+    }
+
+    /**
+     * Gets the name of the erasure of a type, as {@link Class#forName(String)} expects it.
+     */
+    private String binaryName(TypeMirror type) {
+        TypeMirror erasure = processingEnv.getTypeUtils().erasure(type);
+        switch (erasure.getKind()) {
+            case DECLARED:
+                return binaryName((TypeElement) ((DeclaredType) erasure).asElement());
+            case ARRAY:
+                return "[" + descriptor(((ArrayType) erasure).getComponentType());
+            default:
+                return erasure.getKind().name().toLowerCase();
+        }
+    }
+
+    private String binaryName(TypeElement type) {
+        return processingEnv.getElementUtils().getBinaryName(type).toString();
+    }
+
+    private String descriptor(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return "Z";
+            case BYTE:
+                return "B";
+            case CHAR:
+                return "C";
+            case SHORT:
+                return "S";
+            case INT:
+                return "I";
+            case LONG:
+                return "J";
+            case FLOAT:
+                return "F";
+            case DOUBLE:
+                return "D";
+            case ARRAY:
+                return "[" + descriptor(((ArrayType) type).getComponentType());
+            default:
+                return "L" + binaryName(type) + ";";
+        }
+    }
+
+    private static String flag(boolean value) {
+        return value ? "1" : "0";
+    }
+
+    private static String encode(String name) {
+        try {
+            return URLEncoder.encode(name, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
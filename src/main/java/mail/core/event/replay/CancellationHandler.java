@@ -0,0 +1,18 @@
+package mail.core.event.replay;
+
+import mail.api.event.Event;
+import mail.api.event.EventPhase;
+import mail.core.event.EventTraceReplay;
+
+public final class CancellationHandler extends EventTraceReplay.SyntheticListener {
+
+    public CancellationHandler(int index) {
+        super(index);
+    }
+
+    @Event.Subscribe(phase = EventPhase.CANCELLATION)
+    public boolean onEvent(ReplayedCancelableEvent event, @Event.Result boolean canceled) {
+        return cancel(event, canceled);
+    }
+
+}
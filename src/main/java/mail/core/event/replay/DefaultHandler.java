@@ -0,0 +1,18 @@
+package mail.core.event.replay;
+
+import mail.api.event.Event;
+import mail.api.event.EventPhase;
+import mail.core.event.EventTraceReplay;
+
+public final class DefaultHandler extends EventTraceReplay.SyntheticListener {
+
+    public DefaultHandler(int index) {
+        super(index);
+    }
+
+    @Event.Subscribe
+    public void onEvent(ReplayedEvent event) {
+        work(event, EventPhase.DEFAULT);
+    }
+
+}
@@ -0,0 +1,21 @@
+package mail.core.event.replay;
+
+import mail.api.event.Event;
+import mail.api.event.EventPhase;
+import mail.core.event.EventTraceReplay;
+
+/**
+ * Stands in for a handler that received canceled events too.
+ */
+public final class PostCanceledHandler extends EventTraceReplay.SyntheticListener {
+
+    public PostCanceledHandler(int index) {
+        super(index);
+    }
+
+    @Event.Subscribe(phase = EventPhase.POST, receiveCanceled = true)
+    public void onEvent(ReplayedEvent event) {
+        work(event, EventPhase.POST);
+    }
+
+}
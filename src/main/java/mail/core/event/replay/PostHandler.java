@@ -0,0 +1,18 @@
+package mail.core.event.replay;
+
+import mail.api.event.Event;
+import mail.api.event.EventPhase;
+import mail.core.event.EventTraceReplay;
+
+public final class PostHandler extends EventTraceReplay.SyntheticListener {
+
+    public PostHandler(int index) {
+        super(index);
+    }
+
+    @Event.Subscribe(phase = EventPhase.POST)
+    public void onEvent(ReplayedEvent event) {
+        work(event, EventPhase.POST);
+    }
+
+}
@@ -0,0 +1,21 @@
+package mail.core.event.replay;
+
+import mail.api.event.Event;
+import mail.api.event.EventPhase;
+import mail.core.event.EventTraceReplay;
+
+/**
+ * Stands in for a handler that received canceled events too.
+ */
+public final class PreCanceledHandler extends EventTraceReplay.SyntheticListener {
+
+    public PreCanceledHandler(int index) {
+        super(index);
+    }
+
+    @Event.Subscribe(phase = EventPhase.PRE, receiveCanceled = true)
+    public void onEvent(ReplayedEvent event) {
+        work(event, EventPhase.PRE);
+    }
+
+}
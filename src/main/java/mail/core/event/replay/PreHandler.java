@@ -0,0 +1,18 @@
+package mail.core.event.replay;
+
+import mail.api.event.Event;
+import mail.api.event.EventPhase;
+import mail.core.event.EventTraceReplay;
+
+public final class PreHandler extends EventTraceReplay.SyntheticListener {
+
+    public PreHandler(int index) {
+        super(index);
+    }
+
+    @Event.Subscribe(phase = EventPhase.PRE)
+    public void onEvent(ReplayedEvent event) {
+        work(event, EventPhase.PRE);
+    }
+
+}
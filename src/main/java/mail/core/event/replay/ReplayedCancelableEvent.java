@@ -0,0 +1,15 @@
+package mail.core.event.replay;
+
+import mail.api.event.Event;
+import mail.core.event.EventTrace;
+
+/**
+ * Stands in for a recorded event class that went through the cancellation phase.
+ */
+public final class ReplayedCancelableEvent extends ReplayedEvent implements Event.Cancelable {
+
+    public ReplayedCancelableEvent(EventTrace.Post post) {
+        super(post);
+    }
+
+}
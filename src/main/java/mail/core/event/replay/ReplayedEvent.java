@@ -0,0 +1,17 @@
+package mail.core.event.replay;
+
+import mail.core.event.EventTrace;
+import mail.core.event.EventTraceReplay;
+
+/**
+ * Stands in for a recorded event class during a replay.
+ * {@link EventTraceReplay} loads this class and the handlers in this package again for every recorded event class,
+ * so each of them is dispatched as an event class of its own.
+ */
+public class ReplayedEvent extends EventTraceReplay.SyntheticEvent {
+
+    public ReplayedEvent(EventTrace.Post post) {
+        super(post);
+    }
+
+}
@@ -0,0 +1,74 @@
+package mail.core.jfr;
+
+import java.lang.reflect.Method;
+
+/**
+ * Emits Java Flight Recorder events for event posting, slow subscribers and mod loading.
+ * Flight Recorder isn't available on every JVM, so callers only ever see its events as plain objects, and nothing
+ * that references it gets loaded unless it is.
+ * Every method is cheap to call while no recording has the matching event enabled, so callers should check for that
+ * before doing any work to fill an event in.
+ */
+public final class FlightRecording {
+
+    public static final boolean AVAILABLE = isAvailable();
+
+    private FlightRecording() {
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, FlightRecording.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    public static boolean isPostEnabled() {
+        return AVAILABLE && JfrEvents.POST.isEnabled();
+    }
+
+    public static boolean isSubscriberEnabled() {
+        return AVAILABLE && JfrEvents.SUBSCRIBER.isEnabled();
+    }
+
+    public static boolean isLoaderStageEnabled() {
+        return AVAILABLE && JfrEvents.LOADER_STAGE.isEnabled();
+    }
+
+    /**
+     * Starts timing a post. Only call this if {@link #isPostEnabled()}.
+     */
+    public static Object beginPost() {
+        return JfrEvents.beginPost();
+    }
+
+    public static void commitPost(Object post, Class<?> eventClass, int phases, int handlers, boolean canceled) {
+        JfrEvents.commitPost(post, eventClass, phases, handlers, canceled);
+    }
+
+    /**
+     * Starts timing a subscriber. Only call this if {@link #isSubscriberEnabled()}.
+     * The event is only recorded if the subscriber takes longer than the threshold of the recording.
+     */
+    public static Object beginSubscriber() {
+        return JfrEvents.beginSubscriber();
+    }
+
+    public static void commitSubscriber(Object subscriber, Class<?> eventClass, Method method, String phase) {
+        JfrEvents.commitSubscriber(subscriber, eventClass, method, phase);
+    }
+
+    /**
+     * Starts timing a mod loading stage. Only call this if {@link #isLoaderStageEnabled()}.
+     */
+    public static Object beginLoaderStage() {
+        return JfrEvents.beginLoaderStage();
+    }
+
+    public static void commitLoaderStage(Object stage, String name) {
+        JfrEvents.commitLoaderStage(stage, name);
+    }
+
+}
@@ -0,0 +1,132 @@
+package mail.core.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+import java.lang.reflect.Method;
+
+/**
+ * The Flight Recorder event types. Only loaded through {@link FlightRecording} once it knows they are available.
+ */
+final class JfrEvents {
+
+    static final EventType POST = EventType.getEventType(PostEvent.class);
+    static final EventType SUBSCRIBER = EventType.getEventType(SubscriberEvent.class);
+    static final EventType LOADER_STAGE = EventType.getEventType(LoaderStageEvent.class);
+
+    private JfrEvents() {
+    }
+
+    static Object beginPost() {
+        PostEvent event = new PostEvent();
+        event.begin();
+        return event;
+    }
+
+    static void commitPost(Object post, Class<?> eventClass, int phases, int handlers, boolean canceled) {
+        PostEvent event = (PostEvent) post;
+        event.end();
+        if (event.shouldCommit()) {
+            event.eventClass = eventClass;
+            event.phases = phases;
+            event.handlers = handlers;
+            event.canceled = canceled;
+            event.commit();
+        }
+    }
+
+    static Object beginSubscriber() {
+        SubscriberEvent event = new SubscriberEvent();
+        event.begin();
+        return event;
+    }
+
+    static void commitSubscriber(Object subscriber, Class<?> eventClass, Method method, String phase) {
+        SubscriberEvent event = (SubscriberEvent) subscriber;
+        event.end();
+        // Only true if the subscriber took longer than the threshold
+        if (event.shouldCommit()) {
+            event.eventClass = eventClass;
+            event.handlerClass = method.getDeclaringClass();
+            event.handlerMethod = method.getName();
+            event.phase = phase;
+            event.commit();
+        }
+    }
+
+    static Object beginLoaderStage() {
+        LoaderStageEvent event = new LoaderStageEvent();
+        event.begin();
+        return event;
+    }
+
+    static void commitLoaderStage(Object stage, String name) {
+        LoaderStageEvent event = (LoaderStageEvent) stage;
+        event.end();
+        if (event.shouldCommit()) {
+            event.stage = name;
+            event.commit();
+        }
+    }
+
+    @Name("mail.EventPost")
+    @Label("Event Post")
+    @Category({"MAIL", "Events"})
+    @Description("An event posted to an event bus, through all of its phases")
+    @StackTrace(false)
+    static final class PostEvent extends Event {
+
+        @Label("Event Class")
+        Class<?> eventClass;
+
+        @Label("Phases")
+        int phases;
+
+        @Label("Handlers")
+        @Description("Number of handlers the event was sent to")
+        int handlers;
+
+        @Label("Canceled")
+        boolean canceled;
+
+    }
+
+    @Name("mail.EventSubscriber")
+    @Label("Slow Event Subscriber")
+    @Category({"MAIL", "Events"})
+    @Description("An event subscriber that took longer than the threshold to run")
+    @Threshold("1 ms")
+    static final class SubscriberEvent extends Event {
+
+        @Label("Event Class")
+        Class<?> eventClass;
+
+        @Label("Handler Class")
+        Class<?> handlerClass;
+
+        @Label("Handler Method")
+        String handlerMethod;
+
+        @Label("Phase")
+        String phase;
+
+    }
+
+    @Name("mail.LoaderStage")
+    @Label("Mod Loading Stage")
+    @Category({"MAIL", "Loader"})
+    @StackTrace(false)
+    static final class LoaderStageEvent extends Event {
+
+        @Label("Stage")
+        String stage;
+
+    }
+
+}
@@ -7,6 +7,8 @@ import mail.api.loader.ModContainer;
 import mail.api.loader.ModProvider;
 import mail.api.serial.DataStructure;
 import mail.core.event.EventBusImpl;
+import mail.core.event.EventMetadataCache;
+import mail.core.jfr.FlightRecording;
 import mail.core.serial.JSONSerializationHandler;
 
 import java.io.File;
@@ -31,6 +33,7 @@ public enum LoaderImpl implements Loader {
 
     private static final String METADATA_FILE_NAME = "mailmod.json";
     private static final String MODS_DIRECTORY_NAME = "mailmods";
+    private static final String EVENT_CACHE_FILE_NAME = ".event-metadata";
 
     private final Set<ModContainer> containers = new HashSet<>();
     private final Map<ModProvider<?>, Set<? extends Mod.Prototype>> modPrototypes = new IdentityHashMap<>();
@@ -51,13 +54,37 @@ public enum LoaderImpl implements Loader {
     }
 
     public void load(ClasspathManager manager) throws Exception {
-        findMods(manager);
-        findDependencies();
-        injectDependencies();
-        identifyMods();
-        setupMods(manager);
-        loadModules();
-        loadMods();
+        // Mods register most of their listeners while loading, so that's when scanning them costs the most
+        EventMetadataCache eventCache = EventMetadataCache.open(Paths.get(MODS_DIRECTORY_NAME, EVENT_CACHE_FILE_NAME));
+        EventMetadataCache.install(eventCache);
+
+        runStage("findMods", () -> findMods(manager));
+        runStage("findDependencies", this::findDependencies);
+        runStage("injectDependencies", this::injectDependencies);
+        runStage("identifyMods", this::identifyMods);
+        runStage("setupMods", () -> setupMods(manager));
+        runStage("loadModules", this::loadModules);
+        runStage("loadMods", this::loadMods);
+
+        try {
+            eventCache.save();
+        } catch (IOException e) {
+            // The cache is only used to start faster - ignoring! TODO: Log warning
+        }
+    }
+
+    private void runStage(String name, Stage stage) throws Exception {
+        if (!FlightRecording.isLoaderStageEnabled()) {
+            stage.run();
+            return;
+        }
+
+        Object recorded = FlightRecording.beginLoaderStage();
+        try {
+            stage.run();
+        } finally {
+            FlightRecording.commitLoaderStage(recorded, name);
+        }
     }
 
     private void findMods(ClasspathManager manager) throws IOException {
@@ -157,6 +184,7 @@ public enum LoaderImpl implements Loader {
         public Context(Mod.Prototype prototype, ClasspathManager manager) {
             this.prototype = prototype;
             this.manager = manager;
+            // Event and handler metadata is shared by every bus, so a separate bus per mod costs next to nothing
             this.eventBus = new EventBusImpl(); // TODO: Replace with ASM-based event bus
         }
 
@@ -177,6 +205,12 @@ public enum LoaderImpl implements Loader {
 
     }
 
+    private interface Stage {
+
+        void run() throws Exception;
+
+    }
+
     public interface ClasspathManager {
 
         ClassLoader getClassLoader();
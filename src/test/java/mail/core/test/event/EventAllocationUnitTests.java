@@ -0,0 +1,202 @@
+package mail.core.test.event;
+
+import com.sun.management.ThreadMXBean;
+import mail.api.event.Event;
+import mail.api.event.EventBus;
+import mail.api.event.EventPhase;
+import mail.core.event.EventBusImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+public class EventAllocationUnitTests {
+
+    private static final int WARMUP_POSTS = 200000;
+    private static final int POSTS = 100000;
+
+    private static ThreadMXBean threadBean;
+
+    private final EventBus eventBus = new EventBusImpl();
+
+    public EventAllocationUnitTests() {
+        eventBus.register(StaticListener.class);
+        eventBus.register(new InstanceListener());
+    }
+
+    @BeforeAll
+    public static void setup() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assumptions.assumeTrue(bean instanceof ThreadMXBean, "Allocation tracking is not available on this JVM");
+        threadBean = (ThreadMXBean) bean;
+        Assumptions.assumeTrue(threadBean.isThreadAllocatedMemorySupported(), "Allocation tracking is not supported");
+        threadBean.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @Test
+    public void post() {
+        TestEvent event = new TestEvent();
+        assertNoAllocations(() -> eventBus.post(event));
+    }
+
+    @Test
+    public void postCancelable() {
+        TestCancelableEvent event = new TestCancelableEvent();
+        assertNoAllocations(() -> eventBus.post(event));
+        Assertions.assertTrue(StaticListener.receivedCanceled > 0, "The canceled event was not received!");
+    }
+
+    @Test
+    public void postWithResult() {
+        TestEventWithResult event = new TestEventWithResult();
+        assertNoAllocations(() -> eventBus.post(event));
+        Assertions.assertFalse(eventBus.post(event), "Expected the result to be flipped twice!");
+    }
+
+    @Test
+    public void postWithPrimitiveResult() {
+        EventBusImpl eventBus = new EventBusImpl();
+        for (int i = 0; i < 100; i++) {
+            eventBus.register(new DamageListener());
+        }
+
+        // Posted as a plain event, since boxing the final result once is up to the caller and only chaining it through
+        // every handler is measured
+        Event event = new TestDamageEvent();
+        assertNoAllocations(() -> eventBus.post(event));
+    }
+
+    @Test
+    public void postPrepared() {
+        EventBusImpl eventBus = (EventBusImpl) this.eventBus;
+        EventBusImpl.PreparedEvent<TestEvent> prepared = eventBus.prepare(TestEvent.class);
+        TestEvent event = new TestEvent();
+        assertNoAllocations(() -> prepared.post(event));
+    }
+
+    @Test
+    public void stagePrepared() {
+        EventBusImpl eventBus = (EventBusImpl) this.eventBus;
+        EventBusImpl.PreparedEvent<TestCancelableEvent> prepared = eventBus.prepare(TestCancelableEvent.class);
+        TestCancelableEvent event = new TestCancelableEvent();
+        assertNoAllocations(() -> {
+            EventBus.PostedEvent posted = prepared.stage(event);
+            posted.firePre();
+            posted.fireDefault();
+            posted.firePost();
+        });
+    }
+
+    @Test
+    public void postWithMetrics() {
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(StaticListener.class);
+        eventBus.register(new InstanceListener());
+        eventBus.enableMetrics();
+
+        TestEvent event = new TestEvent();
+        assertNoAllocations(() -> eventBus.post(event));
+    }
+
+    private void assertNoAllocations(Runnable post) {
+        long thread = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP_POSTS; i++) {
+            post.run();
+        }
+
+        long before = threadBean.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < POSTS; i++) {
+            post.run();
+        }
+        long allocated = threadBean.getThreadAllocatedBytes(thread) - before;
+
+        // Anything allocated per post would add up to at least one object header per post
+        Assertions.assertTrue(allocated < POSTS, "Posting allocated " + allocated + " bytes over " + POSTS + " posts!");
+    }
+
+    public static class TestEvent implements Event {
+
+        @Property("value")
+        public int getValue() {
+            return 42;
+        }
+
+    }
+
+    private static class TestCancelableEvent implements Event.Cancelable {
+    }
+
+    private static class TestEventWithResult implements Event.WithResult<Boolean> {
+
+        @Override
+        public Boolean getDefaultResult() {
+            return false;
+        }
+
+    }
+
+    private static class TestDamageEvent implements Event.WithResult<Float> {
+
+        private static final Float DAMAGE = 10f;
+
+        @Override
+        public Float getDefaultResult() {
+            return DAMAGE;
+        }
+
+    }
+
+    public static class StaticListener {
+
+        private static int received, receivedCanceled;
+
+        @Event.Subscribe
+        public static void onEvent(TestEvent event, @Event.Unpack("value") int value) {
+            received += value;
+        }
+
+        @Event.Subscribe(phase = EventPhase.CANCELLATION)
+        public static boolean onCancelableEventCancellation(TestCancelableEvent event, @Event.Result boolean prevResult) {
+            return true;
+        }
+
+        @Event.Subscribe(receiveCanceled = true)
+        public static void onCancelableEvent(TestCancelableEvent event) {
+            receivedCanceled++;
+        }
+
+        @Event.Subscribe
+        public static boolean onEventWithResult(TestEventWithResult event, @Event.Result boolean prevResult) {
+            return !prevResult;
+        }
+
+    }
+
+    public static class DamageListener {
+
+        @Event.Subscribe
+        public float onDamage(TestDamageEvent event, @Event.Result float damage) {
+            return damage * 0.99f;
+        }
+
+    }
+
+    public static class InstanceListener {
+
+        private int received;
+
+        @Event.Subscribe(phase = EventPhase.PRE)
+        public void onEvent(TestEvent event) {
+            received++;
+        }
+
+        @Event.Subscribe(phase = EventPhase.POST)
+        public boolean onEventWithResult(TestEventWithResult event, @Event.Result boolean prevResult) {
+            return !prevResult;
+        }
+
+    }
+
+}
@@ -0,0 +1,125 @@
+package mail.core.test.event;
+
+import mail.api.event.Event;
+import mail.api.event.EventPhase;
+import mail.core.event.EventBusImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class EventAsyncUnitTests {
+
+    @Test
+    public void postAsync() throws Exception {
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(Listener.class);
+
+        TestEvent event = eventBus.postAsync(new TestEvent()).get(10, TimeUnit.SECONDS);
+        Assertions.assertEquals(0b111, event.phases, "Not all phases were fired!");
+        Assertions.assertNotEquals(Thread.currentThread(), event.thread, "The event was posted on the calling thread!");
+    }
+
+    @Test
+    public void postAsyncWithResult() throws Exception {
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(Listener.class);
+
+        int result = eventBus.postAsync(new TestEventWithResult()).get(10, TimeUnit.SECONDS);
+        Assertions.assertEquals(((1 * 2) + 3) * 4, result, "The results were not chained in phase order!");
+    }
+
+    @Test
+    public void postAsyncCustomExecutor() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Thread executorThread = executor.submit(Thread::currentThread).get();
+
+            EventBusImpl eventBus = new EventBusImpl(executor);
+            eventBus.register(Listener.class);
+
+            TestEvent event = eventBus.postAsync(new TestEvent()).get(10, TimeUnit.SECONDS);
+            Assertions.assertEquals(executorThread, event.thread, "The event was not posted on the given executor!");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void postAsyncException() {
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(ThrowingListener.class);
+
+        CompletableFuture<TestEvent> future = eventBus.postAsync(new TestEvent());
+        ExecutionException exception = Assertions.assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+        Assertions.assertTrue(exception.getCause() instanceof IllegalStateException, "Unexpected exception type!");
+    }
+
+    private static class TestEvent implements Event {
+
+        private volatile int phases = 0;
+        private volatile Thread thread;
+
+    }
+
+    private static class TestEventWithResult implements Event.WithResult<Integer> {
+
+        @Override
+        public Integer getDefaultResult() {
+            return 1;
+        }
+
+    }
+
+    public static class Listener {
+
+        @Event.Subscribe(phase = EventPhase.PRE)
+        public static void onEventPre(TestEvent event) {
+            Assertions.assertEquals(0b000, event.phases, "PRE was not the first phase!");
+            event.phases |= 0b001;
+            event.thread = Thread.currentThread();
+        }
+
+        @Event.Subscribe(phase = EventPhase.DEFAULT)
+        public static void onEvent(TestEvent event) {
+            Assertions.assertEquals(0b001, event.phases, "DEFAULT did not come after PRE!");
+            event.phases |= 0b010;
+        }
+
+        @Event.Subscribe(phase = EventPhase.POST)
+        public static void onEventPost(TestEvent event) {
+            Assertions.assertEquals(0b011, event.phases, "POST did not come after DEFAULT!");
+            event.phases |= 0b100;
+        }
+
+        @Event.Subscribe(phase = EventPhase.PRE)
+        public static int onEventWithResultPre(TestEventWithResult event, @Event.Result int prevResult) {
+            return prevResult * 2;
+        }
+
+        @Event.Subscribe(phase = EventPhase.DEFAULT)
+        public static int onEventWithResult(TestEventWithResult event, @Event.Result int prevResult) {
+            return prevResult + 3;
+        }
+
+        @Event.Subscribe(phase = EventPhase.POST)
+        public static int onEventWithResultPost(TestEventWithResult event, @Event.Result int prevResult) {
+            return prevResult * 4;
+        }
+
+    }
+
+    public static class ThrowingListener {
+
+        @Event.Subscribe
+        public static void onEvent(TestEvent event) {
+            throw new RuntimeException("Expected exception");
+        }
+
+    }
+
+}
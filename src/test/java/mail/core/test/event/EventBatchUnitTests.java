@@ -0,0 +1,140 @@
+package mail.core.test.event;
+
+import mail.api.event.Event;
+import mail.api.event.EventPhase;
+import mail.core.event.EventBusImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class EventBatchUnitTests {
+
+    @Test
+    public void postAll() {
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(Listener.class);
+
+        TestEvent first = new TestEvent(), second = new TestEvent();
+        OtherTestEvent other = new OtherTestEvent();
+        eventBus.postAll(first, other, second);
+
+        Assertions.assertEquals(0b111, first.phases, "Not all phases were fired for the first event!");
+        Assertions.assertEquals(0b111, second.phases, "Not all phases were fired for the second event!");
+        Assertions.assertTrue(other.received, "The event of a different class was not received!");
+    }
+
+    @Test
+    public void postAllCancellation() {
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(Listener.class);
+
+        List<TestCancelableEvent> events = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            events.add(new TestCancelableEvent(i % 2 == 0));
+        }
+        eventBus.postAll(events);
+
+        for (TestCancelableEvent event : events) {
+            Assertions.assertEquals(!event.cancel, event.received, "Cancellation leaked between events!");
+        }
+    }
+
+    @Test
+    public void postAllWithResults() {
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(Listener.class);
+
+        List<Integer> results = eventBus.postAllWithResults(Arrays.asList(
+                new TestEventWithResult(1), new TestEventWithResult(2), new TestEventWithResult(3)));
+        Assertions.assertEquals(Arrays.asList(4, 6, 8), results, "Results were mixed up between events!");
+    }
+
+    private static class TestEvent implements Event {
+
+        private int phases = 0;
+
+    }
+
+    private static class OtherTestEvent implements Event {
+
+        private boolean received = false;
+
+    }
+
+    private static class TestCancelableEvent implements Event.Cancelable {
+
+        private final boolean cancel;
+        private boolean received = false;
+
+        private TestCancelableEvent(boolean cancel) {
+            this.cancel = cancel;
+        }
+
+    }
+
+    private static class TestEventWithResult implements Event.WithResult<Integer> {
+
+        private final int value;
+
+        private TestEventWithResult(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public Integer getDefaultResult() {
+            return value;
+        }
+
+    }
+
+    public static class Listener {
+
+        @Event.Subscribe(phase = EventPhase.PRE)
+        public static void onEventPre(TestEvent event) {
+            Assertions.assertEquals(0b000, event.phases, "PRE was not the first phase!");
+            event.phases |= 0b001;
+        }
+
+        @Event.Subscribe(phase = EventPhase.DEFAULT)
+        public static void onEvent(TestEvent event) {
+            Assertions.assertEquals(0b001, event.phases, "DEFAULT did not come after PRE!");
+            event.phases |= 0b010;
+        }
+
+        @Event.Subscribe(phase = EventPhase.POST)
+        public static void onEventPost(TestEvent event) {
+            Assertions.assertEquals(0b011, event.phases, "POST did not come after DEFAULT!");
+            event.phases |= 0b100;
+        }
+
+        @Event.Subscribe
+        public static void onOtherEvent(OtherTestEvent event) {
+            event.received = true;
+        }
+
+        @Event.Subscribe(phase = EventPhase.CANCELLATION)
+        public static boolean onCancelableEventCancellation(TestCancelableEvent event, @Event.Result boolean prevResult) {
+            return event.cancel;
+        }
+
+        @Event.Subscribe
+        public static void onCancelableEvent(TestCancelableEvent event) {
+            event.received = true;
+        }
+
+        @Event.Subscribe(phase = EventPhase.PRE)
+        public static Integer onEventWithResultPre(TestEventWithResult event, @Event.Result Integer prevResult) {
+            return prevResult + 1;
+        }
+
+        @Event.Subscribe(phase = EventPhase.POST)
+        public static Integer onEventWithResultPost(TestEventWithResult event, @Event.Result Integer prevResult) {
+            return prevResult * 2;
+        }
+
+    }
+
+}
@@ -0,0 +1,100 @@
+package mail.core.test.event;
+
+import mail.api.event.Event;
+import mail.api.event.EventBus;
+import mail.core.event.EventBusImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class EventBusConcurrencyUnitTests {
+
+    private static final int THREADS = 8;
+    private static final int POSTS_PER_THREAD = 20000;
+
+    @Test
+    public void postWhileRegistering() throws Exception {
+        EventBus eventBus = new EventBusImpl();
+        CountingListener permanent = new CountingListener();
+        eventBus.register(permanent);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicBoolean posting = new AtomicBoolean(true);
+        try {
+            List<Future<?>> posters = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                posters.add(executor.submit(() -> {
+                    start.await();
+                    for (int j = 0; j < POSTS_PER_THREAD; j++) {
+                        // Alternate between two types so both plans get rebuilt while being read
+                        eventBus.post(j % 2 == 0 ? new TestEvent() : new TestSubEvent());
+                    }
+                    return null;
+                }));
+            }
+
+            Future<Integer> registrar = executor.submit(() -> {
+                start.await();
+                int cycles = 0;
+                while (posting.get()) {
+                    CountingListener listener = new CountingListener();
+                    eventBus.register(listener);
+                    eventBus.register(StaticListener.class);
+                    eventBus.unregister(listener);
+                    eventBus.unregister(StaticListener.class);
+                    cycles++;
+                }
+                return cycles;
+            });
+
+            start.countDown();
+            for (Future<?> poster : posters) {
+                poster.get(1, TimeUnit.MINUTES);
+            }
+            posting.set(false);
+            Assertions.assertTrue(registrar.get(1, TimeUnit.MINUTES) > 0, "The registering thread never ran!");
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assertions.assertEquals(THREADS * POSTS_PER_THREAD, permanent.received.get(),
+                "The permanent listener missed events while others were being registered!");
+    }
+
+    private static class TestEvent implements Event {
+    }
+
+    private static class TestSubEvent extends TestEvent {
+    }
+
+    public static class CountingListener {
+
+        private final AtomicInteger received = new AtomicInteger();
+
+        @Event.Subscribe
+        public void onEvent(TestEvent event) {
+            received.incrementAndGet();
+        }
+
+    }
+
+    public static class StaticListener {
+
+        @Event.Subscribe
+        public static void onEvent(TestSubEvent event) {
+            // NO-OP, this is just here to change the dispatch plans
+        }
+
+    }
+
+}
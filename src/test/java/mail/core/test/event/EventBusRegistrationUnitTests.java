@@ -54,16 +54,77 @@ public class EventBusRegistrationUnitTests {
         eventBus.post(new TestEvent());
     }
 
+    @Test
+    public void registerAfterPost(){
+        EventBus eventBus = new EventBusImpl();
+        Listener listener = new Listener();
+
+        listener.expectsEvent = false;
+        eventBus.post(new TestEvent());
+
+        listener.expectsEvent = true;
+        eventBus.register(listener);
+        eventBus.post(new TestEvent());
+        Assertions.assertEquals(1, listener.received, "Expected the event to be received once!");
+    }
+
+    @Test
+    public void registerSupertype(){
+        EventBus eventBus = new EventBusImpl();
+        SupertypeListener listener = new SupertypeListener();
+
+        eventBus.post(new TestEvent());
+        eventBus.register(listener);
+        eventBus.post(new TestEvent());
+        eventBus.post(new TestSubEvent());
+        Assertions.assertEquals(1, listener.receivedEvent, "Expected TestEvent to be received once!");
+        Assertions.assertEquals(1, listener.receivedSubEvent, "Expected TestSubEvent to be received once!");
+        Assertions.assertEquals(2, listener.receivedAny, "Expected both events through the supertype!");
+
+        eventBus.unregister(listener);
+        eventBus.post(new TestSubEvent());
+        Assertions.assertEquals(2, listener.receivedAny, "Received an event after unregistering!");
+    }
+
+    @Test
+    public void hasListeners(){
+        EventBusImpl eventBus = new EventBusImpl();
+        Assertions.assertFalse(eventBus.hasListeners(TestEvent.class), "Expected no listeners before registering!");
+
+        eventBus.register(StaticListener.class);
+        Assertions.assertTrue(eventBus.hasListeners(TestEvent.class), "Expected listeners after registering!");
+        Assertions.assertTrue(eventBus.hasListeners(TestSubEvent.class), "Expected subtypes to inherit listeners!");
+
+        eventBus.unregister(StaticListener.class);
+        Assertions.assertFalse(eventBus.hasListeners(TestEvent.class), "Expected no listeners after unregistering!");
+        Assertions.assertFalse(eventBus.hasListeners(TestSubEvent.class), "Expected no listeners after unregistering!");
+    }
+
+    @Test
+    public void postedEventHasListeners(){
+        EventBus eventBus = new EventBusImpl();
+        Assertions.assertFalse(eventBus.postManually(new TestEvent()).hasListeners(), "Expected no listeners!");
+
+        StaticListener.expectsEvent = false;
+        eventBus.register(StaticListener.class);
+        Assertions.assertTrue(eventBus.postManually(new TestEvent()).hasListeners(), "Expected listeners!");
+    }
+
     private static class TestEvent implements Event {
     }
 
+    private static class TestSubEvent extends TestEvent {
+    }
+
     public static class Listener {
 
         private boolean expectsEvent;
+        private int received;
 
         @Event.Subscribe
         public void onTestEvent(TestEvent event){
             Assertions.assertTrue(expectsEvent, "Unexpected event!");
+            received++;
         }
 
     }
@@ -79,4 +140,25 @@ public class EventBusRegistrationUnitTests {
 
     }
 
+    public static class SupertypeListener {
+
+        private int receivedEvent, receivedSubEvent, receivedAny;
+
+        @Event.Subscribe
+        public void onAnyEvent(Event event){
+            receivedAny++;
+        }
+
+        @Event.Subscribe
+        public void onTestEvent(TestEvent event){
+            if (event.getClass() == TestEvent.class) receivedEvent++;
+        }
+
+        @Event.Subscribe
+        public void onTestSubEvent(TestSubEvent event){
+            receivedSubEvent++;
+        }
+
+    }
+
 }
@@ -55,6 +55,22 @@ public class EventCancellationUnitTests {
         Assertions.assertTrue(CancelledListener.fired, "The event was not fired!");
     }
 
+    @Test
+    public void cancelListenAllPhases() {
+        EventBus eventBus = new EventBusImpl();
+        eventBus.register(CancelledPhasesListener.class);
+        eventBus.post(new TestCancelableEvent());
+        Assertions.assertEquals(0b111, CancelledPhasesListener.received, "Not all phases were received!");
+
+        EventBus.PostedEvent event = eventBus.postManually(new TestCancelableEvent());
+        Assertions.assertTrue(event.wasCancelled(), "The event was not cancelled!");
+        CancelledPhasesListener.received = 0;
+        event.firePre();
+        event.fireDefault();
+        event.firePost();
+        Assertions.assertEquals(0b111, CancelledPhasesListener.received, "Not all phases were received!");
+    }
+
     private class TestEvent implements Event {
 
     }
@@ -173,4 +189,40 @@ public class EventCancellationUnitTests {
 
     }
 
+    public static class CancelledPhasesListener {
+
+        private static int received = 0;
+
+        @Event.Subscribe(phase = EventPhase.CANCELLATION)
+        public static boolean onTestEventCancellation(TestCancelableEvent event, @Event.Result boolean prevResult) {
+            return true;
+        }
+
+        @Event.Subscribe(phase = EventPhase.PRE, receiveCanceled = true)
+        public static void onTestEventPre(TestCancelableEvent event) {
+            received |= 0b001;
+        }
+
+        @Event.Subscribe(phase = EventPhase.PRE)
+        public static void onTestEventPreIgnored(TestCancelableEvent event) {
+            Assertions.assertTrue(false, "Received a canceled event!");
+        }
+
+        @Event.Subscribe(receiveCanceled = true)
+        public static void onTestEvent(TestCancelableEvent event) {
+            received |= 0b010;
+        }
+
+        @Event.Subscribe(phase = EventPhase.POST, receiveCanceled = true)
+        public static void onTestEventPost(TestCancelableEvent event) {
+            received |= 0b100;
+        }
+
+        @Event.Subscribe(phase = EventPhase.POST)
+        public static void onTestEventPostIgnored(TestCancelableEvent event) {
+            Assertions.assertTrue(false, "Received a canceled event!");
+        }
+
+    }
+
 }
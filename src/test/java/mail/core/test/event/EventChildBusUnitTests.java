@@ -0,0 +1,148 @@
+package mail.core.test.event;
+
+import mail.api.event.Event;
+import mail.api.event.EventBus;
+import mail.api.event.EventPhase;
+import mail.core.event.EventBusImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class EventChildBusUnitTests {
+
+    @Test
+    public void isolated() {
+        EventBusImpl parent = new EventBusImpl();
+        EventBusImpl child = parent.createChild(false);
+        Listener parentListener = new Listener(), childListener = new Listener();
+        parent.register(parentListener);
+        child.register(childListener);
+
+        child.post(new TestEvent());
+        Assertions.assertEquals(0, parentListener.received, "The event bubbled up to the parent!");
+        Assertions.assertEquals(1, childListener.received, "The child's listener did not receive the event!");
+
+        parent.post(new TestEvent());
+        Assertions.assertEquals(1, parentListener.received, "The parent's listener did not receive the event!");
+        Assertions.assertEquals(1, childListener.received, "The event went down to the child!");
+    }
+
+    @Test
+    public void bubbles() {
+        EventBusImpl parent = new EventBusImpl();
+        EventBusImpl child = parent.createChild(true);
+        Listener parentListener = new Listener();
+        parent.register(parentListener);
+
+        Assertions.assertTrue(child.hasListeners(TestEvent.class), "The parent's listeners were not taken into account!");
+
+        child.post(new TestEvent());
+        Assertions.assertEquals(1, parentListener.received, "The event did not bubble up to the parent!");
+
+        // Registering on the parent after the child has posted should still be picked up
+        Listener lateListener = new Listener();
+        parent.register(lateListener);
+        child.post(new TestEvent());
+        Assertions.assertEquals(1, lateListener.received, "The event did not bubble up to the new listener!");
+    }
+
+    @Test
+    public void bubblesPhaseByPhase() {
+        EventBusImpl parent = new EventBusImpl();
+        EventBusImpl child = parent.createChild(true);
+        parent.register(OrderListener.class);
+        child.register(ChildOrderListener.class);
+
+        // The child's handlers run before the parent's in every phase, and the phases don't interleave
+        Assertions.assertEquals("pre child,pre parent,post child,post parent,", child.post(new TestResultEvent()));
+    }
+
+    @Test
+    public void bubblesCancellation() {
+        EventBusImpl parent = new EventBusImpl();
+        EventBusImpl child = parent.createChild(true);
+        Listener parentListener = new Listener();
+        parent.register(parentListener);
+        child.register(CancelingListener.class);
+
+        child.post(new TestCancelableEvent());
+        Assertions.assertEquals(0, parentListener.received, "The parent's listener received the canceled event!");
+
+        EventBus.PostedEvent event = child.postManually(new TestCancelableEvent());
+        Assertions.assertTrue(event.wasCancelled(), "The event was not canceled!");
+    }
+
+    @Test
+    public void grandchild() {
+        EventBusImpl root = new EventBusImpl();
+        EventBusImpl grandchild = root.createChild(true).createChild(true);
+        Listener listener = new Listener();
+        root.register(listener);
+
+        grandchild.post(new TestEvent());
+        Assertions.assertEquals(1, listener.received, "The event did not bubble up to the root!");
+    }
+
+    public static class TestEvent implements Event {
+    }
+
+    public static class TestCancelableEvent extends TestEvent implements Event.Cancelable {
+    }
+
+    public static class TestResultEvent implements Event.WithResult<String> {
+
+        @Override
+        public String getDefaultResult() {
+            return "";
+        }
+
+    }
+
+    public static class Listener {
+
+        private int received;
+
+        @Event.Subscribe
+        public void onEvent(TestEvent event) {
+            received++;
+        }
+
+    }
+
+    public static class CancelingListener {
+
+        @Event.Subscribe(phase = EventPhase.CANCELLATION)
+        public static boolean onCancellation(TestCancelableEvent event, @Event.Result boolean prevResult) {
+            return true;
+        }
+
+    }
+
+    public static class OrderListener {
+
+        @Event.Subscribe(phase = EventPhase.PRE)
+        public static String onPre(TestResultEvent event, @Event.Result String prevResult) {
+            return prevResult + "pre parent,";
+        }
+
+        @Event.Subscribe(phase = EventPhase.POST)
+        public static String onPost(TestResultEvent event, @Event.Result String prevResult) {
+            return prevResult + "post parent,";
+        }
+
+    }
+
+    public static class ChildOrderListener {
+
+        @Event.Subscribe(phase = EventPhase.PRE)
+        public static String onPre(TestResultEvent event, @Event.Result String prevResult) {
+            return prevResult + "pre child,";
+        }
+
+        @Event.Subscribe(phase = EventPhase.POST)
+        public static String onPost(TestResultEvent event, @Event.Result String prevResult) {
+            return prevResult + "post child,";
+        }
+
+    }
+
+}
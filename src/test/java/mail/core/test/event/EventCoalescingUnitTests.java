@@ -0,0 +1,227 @@
+package mail.core.test.event;
+
+import mail.api.event.Event;
+import mail.api.event.EventPhase;
+import mail.core.event.CoalescingEventQueue;
+import mail.core.event.EventBusImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class EventCoalescingUnitTests {
+
+    @Test
+    public void lastValueWins() {
+        EventBusImpl eventBus = new EventBusImpl();
+        Listener listener = new Listener();
+        eventBus.register(listener);
+
+        CoalescingEventQueue queue = eventBus.createCoalescingQueue();
+        queue.post("a", new UpdateEvent("a", 1));
+        queue.post("b", new UpdateEvent("b", 1));
+        queue.post("a", new UpdateEvent("a", 2));
+        queue.post("a", new UpdateEvent("a", 3));
+        Assertions.assertTrue(listener.received.isEmpty(), "Events were posted before the queue was flushed!");
+
+        Assertions.assertEquals(2, queue.flush(), "Unexpected number of flushed events!");
+        Assertions.assertEquals(Arrays.asList("a=3", "b=1"), listener.received,
+                "Only the last event of every key should be posted, in the order the keys were first queued in!");
+        Assertions.assertEquals(4, queue.getQueuedCount(), "Unexpected number of queued events!");
+        Assertions.assertEquals(2, queue.getMergedCount(), "Unexpected number of merged events!");
+        Assertions.assertEquals(2, queue.getDeliveredCount(), "Unexpected number of delivered events!");
+        Assertions.assertEquals(0, queue.flush(), "Events were posted twice!");
+    }
+
+    @Test
+    public void merge() {
+        EventBusImpl eventBus = new EventBusImpl();
+        Listener listener = new Listener();
+        eventBus.register(listener);
+
+        CoalescingEventQueue queue = eventBus.createCoalescingQueue();
+        for (int i = 1; i <= 4; i++) {
+            queue.post("a", new UpdateEvent("a", i), (previous, event) -> new UpdateEvent("a", previous.value + event.value));
+        }
+        queue.flush();
+
+        Assertions.assertEquals(Arrays.asList("a=10"), listener.received, "The events were not merged!");
+        Assertions.assertEquals(3, queue.getMergedCount(), "Unexpected number of merged events!");
+    }
+
+    @Test
+    public void failedMerge() {
+        EventBusImpl eventBus = new EventBusImpl();
+        Listener listener = new Listener();
+        eventBus.register(listener);
+
+        CoalescingEventQueue queue = eventBus.createCoalescingQueue();
+        queue.post("a", new UpdateEvent("a", 1));
+        Assertions.assertThrows(NullPointerException.class,
+                () -> queue.post("a", new UpdateEvent("a", 2), (previous, event) -> null),
+                "A merger that returned null was accepted!");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> queue.post("a", new UpdateEvent("a", 3),
+                (previous, event) -> {
+                    throw new IllegalArgumentException();
+                }), "The exception of the merger was not passed on!");
+        Assertions.assertEquals(1, queue.getQueuedCount(), "Events that failed to merge were counted as queued!");
+        Assertions.assertEquals(0, queue.getMergedCount(), "Events that failed to merge were counted as merged!");
+
+        Assertions.assertEquals(1, queue.flush(), "The pending event was lost to the failed merges!");
+        Assertions.assertEquals(Arrays.asList("a=1"), listener.received, "The pending event was replaced!");
+    }
+
+    @Test
+    public void failedFlushIsNotDelivered() {
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(ThrowingListener.class);
+
+        CoalescingEventQueue queue = eventBus.createCoalescingQueue();
+        queue.post("a", new UpdateEvent("a", 1));
+        queue.post("b", new UpdateEvent("b", 1));
+        Assertions.assertThrows(IllegalStateException.class, queue::flush, "The exception of the handler was lost!");
+        Assertions.assertEquals(0, queue.getDeliveredCount(), "Events were counted as delivered before being posted!");
+    }
+
+    @Test
+    public void keysArePerEventClass() {
+        EventBusImpl eventBus = new EventBusImpl();
+        Listener listener = new Listener();
+        eventBus.register(listener);
+
+        CoalescingEventQueue queue = eventBus.createCoalescingQueue();
+        queue.post("a", new UpdateEvent("a", 1));
+        queue.post("a", new OtherUpdateEvent("a", 2));
+
+        Assertions.assertEquals(2, queue.flush(), "Events of different classes were merged!");
+        Assertions.assertEquals(0, queue.getMergedCount(), "Events of different classes were merged!");
+    }
+
+    @Test
+    public void flushGoesThroughAllPhases() {
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(CancelingListener.class);
+
+        CoalescingEventQueue queue = eventBus.createCoalescingQueue();
+        CancelableUpdateEvent canceled = new CancelableUpdateEvent(true);
+        CancelableUpdateEvent received = new CancelableUpdateEvent(false);
+        queue.post(1, new CancelableUpdateEvent(false));
+        queue.post(1, canceled);
+        queue.post(2, received);
+        queue.flush();
+
+        Assertions.assertEquals(0b101, canceled.phases, "The canceled event went through the wrong phases!");
+        Assertions.assertEquals(0b111, received.phases, "The event did not go through all phases!");
+    }
+
+    @Test
+    public void postedWhileFlushing() {
+        EventBusImpl eventBus = new EventBusImpl();
+        CoalescingEventQueue queue = eventBus.createCoalescingQueue();
+        Listener listener = new Listener();
+        RequeuingListener requeuing = new RequeuingListener(queue);
+        eventBus.register(listener);
+        eventBus.register(requeuing);
+
+        queue.post("a", new UpdateEvent("a", 1));
+        Assertions.assertEquals(1, queue.flush(), "Events queued while flushing were posted in the same flush!");
+        Assertions.assertEquals(1, queue.getPendingCount(), "The event queued while flushing was lost!");
+        Assertions.assertEquals(1, queue.flush(), "The event queued while flushing was not posted!");
+        Assertions.assertEquals(Arrays.asList("a=1", "a=2"), listener.received, "Unexpected events were received!");
+    }
+
+    private static class UpdateEvent implements Event {
+
+        private final String key;
+        private final int value;
+
+        private UpdateEvent(String key, int value) {
+            this.key = key;
+            this.value = value;
+        }
+
+    }
+
+    private static class OtherUpdateEvent extends UpdateEvent {
+
+        private OtherUpdateEvent(String key, int value) {
+            super(key, value);
+        }
+
+    }
+
+    private static class CancelableUpdateEvent implements Event.Cancelable {
+
+        private final boolean cancel;
+        private int phases = 0;
+
+        private CancelableUpdateEvent(boolean cancel) {
+            this.cancel = cancel;
+        }
+
+    }
+
+    public static class Listener {
+
+        private final List<String> received = new ArrayList<>();
+
+        @Event.Subscribe
+        public void onUpdate(UpdateEvent event) {
+            received.add(event.key + "=" + event.value);
+        }
+
+    }
+
+    public static class ThrowingListener {
+
+        @Event.Subscribe
+        public static void onUpdate(UpdateEvent event) {
+            throw new IllegalArgumentException("Failed to handle " + event.key);
+        }
+
+    }
+
+    public static class RequeuingListener {
+
+        private final CoalescingEventQueue queue;
+
+        private RequeuingListener(CoalescingEventQueue queue) {
+            this.queue = queue;
+        }
+
+        @Event.Subscribe
+        public void onUpdate(UpdateEvent event) {
+            if (event.value == 1) {
+                queue.post(event.key, new UpdateEvent(event.key, 2));
+            }
+        }
+
+    }
+
+    public static class CancelingListener {
+
+        @Event.Subscribe(phase = EventPhase.CANCELLATION)
+        public static boolean onCancellation(CancelableUpdateEvent event, @Event.Result boolean canceled) {
+            return canceled || event.cancel;
+        }
+
+        @Event.Subscribe(phase = EventPhase.PRE, receiveCanceled = true)
+        public static void onPre(CancelableUpdateEvent event) {
+            event.phases |= 0b001;
+        }
+
+        @Event.Subscribe
+        public static void onDefault(CancelableUpdateEvent event) {
+            event.phases |= 0b010;
+        }
+
+        @Event.Subscribe(phase = EventPhase.POST, receiveCanceled = true)
+        public static void onPost(CancelableUpdateEvent event) {
+            event.phases |= 0b100;
+        }
+
+    }
+
+}
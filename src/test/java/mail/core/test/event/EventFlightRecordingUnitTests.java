@@ -0,0 +1,132 @@
+package mail.core.test.event;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import mail.api.event.Event;
+import mail.api.event.EventBus;
+import mail.core.event.CoalescingEventQueue;
+import mail.core.event.EventBusImpl;
+import mail.core.jfr.FlightRecording;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+public class EventFlightRecordingUnitTests {
+
+    @Test
+    public void recordPosts() throws IOException {
+        Assumptions.assumeTrue(FlightRecording.AVAILABLE, "Flight Recorder is not available on this JVM");
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(Listener.class);
+        Assertions.assertFalse(FlightRecording.isPostEnabled(), "Posts are recorded without a recording!");
+
+        List<RecordedEvent> events = record(() -> eventBus.post(new TestEvent()));
+
+        RecordedEvent post = find(events, "mail.EventPost");
+        Assertions.assertNotNull(post, "The post was not recorded!");
+        Assertions.assertEquals(TestEvent.class.getName(), post.getClass("eventClass").getName());
+        Assertions.assertEquals(2, post.getInt("handlers"), "Unexpected handler count!");
+        Assertions.assertEquals(3, post.getInt("phases"), "Unexpected phase count!");
+
+        RecordedEvent subscriber = find(events, "mail.EventSubscriber");
+        Assertions.assertNotNull(subscriber, "The slow subscriber was not recorded!");
+        Assertions.assertEquals("onEventSlow", subscriber.getString("handlerMethod"));
+        Assertions.assertEquals(1, count(events, "mail.EventSubscriber"), "A subscriber below the threshold was recorded!");
+    }
+
+    @Test
+    public void recordBatchedPosts() throws IOException {
+        Assumptions.assumeTrue(FlightRecording.AVAILABLE, "Flight Recorder is not available on this JVM");
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(Listener.class);
+
+        List<RecordedEvent> events = record(() -> {
+            eventBus.post(new TestEvent());
+            eventBus.postAll(new TestEvent(), new TestEvent(), new TestEvent());
+
+            CoalescingEventQueue queue = eventBus.createCoalescingQueue();
+            queue.post("first", new TestEvent());
+            queue.post("second", new TestEvent());
+            queue.flush();
+        });
+
+        Assertions.assertEquals(6, count(events, "mail.EventPost"), "Not every batched post was recorded!");
+        Assertions.assertEquals(6, count(events, "mail.EventSubscriber"),
+                "Not every slow subscriber of the batched posts was recorded!");
+    }
+
+    @Test
+    public void recordManualPosts() throws IOException {
+        Assumptions.assumeTrue(FlightRecording.AVAILABLE, "Flight Recorder is not available on this JVM");
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(Listener.class);
+
+        List<RecordedEvent> events = record(() -> {
+            EventBus.PostedEvent posted = eventBus.postManually(new TestEvent());
+            posted.firePre();
+            posted.fireDefault();
+            posted.firePost();
+        });
+
+        Assertions.assertEquals(1, count(events, "mail.EventPost"), "The manual post was not recorded exactly once!");
+        RecordedEvent post = find(events, "mail.EventPost");
+        Assertions.assertEquals(2, post.getInt("handlers"), "Unexpected handler count!");
+        Assertions.assertEquals(3, post.getInt("phases"), "Unexpected phase count!");
+        Assertions.assertEquals(1, count(events, "mail.EventSubscriber"), "The slow subscriber was not recorded!");
+    }
+
+    /**
+     * Runs the given posts during a recording of post and slow subscriber events, and reads those events back.
+     */
+    private static List<RecordedEvent> record(Runnable posts) throws IOException {
+        Path file = Files.createTempFile("mail-events", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("mail.EventPost");
+            recording.enable("mail.EventSubscriber").withThreshold(Duration.ofMillis(1));
+            recording.start();
+
+            posts.run();
+
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static long count(List<RecordedEvent> events, String name) {
+        return events.stream().filter(e -> e.getEventType().getName().equals(name)).count();
+    }
+
+    private static RecordedEvent find(List<RecordedEvent> events, String name) {
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals(name)) return event;
+        }
+        return null;
+    }
+
+    public static class TestEvent implements Event {
+    }
+
+    public static class Listener {
+
+        @Event.Subscribe
+        public static void onEvent(TestEvent event) {
+        }
+
+        @Event.Subscribe
+        public static void onEventSlow(TestEvent event) throws InterruptedException {
+            Thread.sleep(5);
+        }
+
+    }
+
+}
@@ -64,6 +64,20 @@ public class EventGenericUnitTests {
         Assertions.assertEquals(2, Listener.received, "Received incorrect amount of events!");
     }
 
+    @Test
+    public void nestedGeneric() {
+        EventBus bus = new EventBusImpl();
+        bus.register(NestedListener.class);
+
+        NestedListener.received = 0;
+        bus.post(new OneGenericEvent<>(List.class));
+        Assertions.assertEquals(2, NestedListener.received, "Received incorrect amount of events!");
+
+        NestedListener.received = 0;
+        bus.post(new OneGenericEvent<>(String.class));
+        Assertions.assertEquals(1, NestedListener.received, "Received incorrect amount of events!");
+    }
+
     private static class NoGenericsEvent implements Event.Generic {
 
         @Override
@@ -158,4 +172,20 @@ public class EventGenericUnitTests {
 
     }
 
+    public static class NestedListener {
+
+        private static int received = 0;
+
+        @Event.Subscribe
+        public static void onNestedEvent(OneGenericEvent<List<String>> event) {
+            received++;
+        }
+
+        @Event.Subscribe
+        public static void onWildcardEvent(OneGenericEvent<?> event) {
+            received++;
+        }
+
+    }
+
 }
@@ -0,0 +1,205 @@
+package mail.core.test.event;
+
+import mail.api.event.Event;
+import mail.api.event.EventPhase;
+import mail.core.event.EventBusImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class EventIndexUnitTests {
+
+    private static final String LOCATION = "META-INF/mail/event-index";
+
+    @Test
+    public void indexed() throws IOException {
+        List<String> index = readIndex();
+        Assertions.assertTrue(index.contains("class\t" + Listener.class.getName()), "The listener was not indexed!");
+        Assertions.assertTrue(index.contains("class\t" + EmptyListener.class.getName()),
+                "Classes without subscribers should still be indexed!");
+
+        List<String> subscribers = entries(index, Listener.class.getName());
+        Assertions.assertEquals(3, subscribers.size(), "Unexpected number of indexed subscribers!");
+        Assertions.assertTrue(subscribers.contains(String.join("\t", "subscriber", Listener.class.getName(),
+                "onEvent", "1", "int", TestEvent.class.getName() + ",int,java.lang.String", "POST", "1", "0", "0",
+                "java.lang.String,?", "R,U:a+name", "0")), "The subscriber was not indexed correctly!");
+
+        List<String> properties = entries(index, TestEvent.class.getName());
+        Assertions.assertTrue(properties.contains(String.join("\t", "property", TestEvent.class.getName(),
+                "getName", "java.lang.String", "a+name", "1")), "The property was not indexed correctly!");
+    }
+
+    @Test
+    public void inherited() throws IOException {
+        List<String> subscribers = entries(readIndex(), SubListener.class.getName());
+        Assertions.assertEquals(3, subscribers.size(), "Inherited subscribers were not indexed!");
+    }
+
+    @Test
+    public void postIndexed() {
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(Listener.class);
+
+        Assertions.assertEquals(3, (int) eventBus.post(new TestEvent<String, Integer>()),
+                "The indexed subscribers did not receive the event!");
+    }
+
+    @Test
+    public void staleEntry() throws Exception {
+        // The index lists a subscriber that has since been renamed, so the class has to be scanned instead
+        Path index = Files.createTempFile("mail-event-index", null);
+        try {
+            Files.write(index, Arrays.asList("# MAIL event index v1",
+                    "class\t" + StaleListener.class.getName(),
+                    String.join("\t", "subscriber", StaleListener.class.getName(), "onRenamed", "1", "int",
+                            StaleEvent.class.getName() + ",int", "DEFAULT", "0", "0", "0", "", "R", "0")),
+                    StandardCharsets.UTF_8);
+            Class<?> listener = new IndexedLoader(StaleListener.class.getName(), index.toUri().toURL())
+                    .loadClass(StaleListener.class.getName());
+
+            EventBusImpl eventBus = new EventBusImpl();
+            eventBus.register(listener);
+            Assertions.assertEquals(1, (int) eventBus.post(new StaleEvent()),
+                    "The subscriber was not found after the stale index entry was dropped!");
+        } finally {
+            Files.deleteIfExists(index);
+        }
+    }
+
+    private static List<String> readIndex() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (URL url : Collections.list(EventIndexUnitTests.class.getClassLoader().getResources(LOCATION))) {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), StandardCharsets.UTF_8))) {
+                lines.addAll(reader.lines().collect(Collectors.toList()));
+            }
+        }
+        Assumptions.assumeFalse(lines.isEmpty(), "The tests were not compiled with the event index processor");
+        return lines;
+    }
+
+    private static List<String> entries(List<String> index, String className) {
+        List<String> entries = new ArrayList<>();
+        int start = index.indexOf("class\t" + className);
+        for (int i = start + 1; start >= 0 && i < index.size() && !index.get(i).startsWith("class\t"); i++) {
+            entries.add(index.get(i));
+        }
+        return entries;
+    }
+
+    public static class TestEvent<A, B> implements Event.WithResult<Integer> {
+
+        @Property(value = "a name", mutable = true)
+        public String getName() {
+            return "name";
+        }
+
+        @Override
+        public Integer getDefaultResult() {
+            return 0;
+        }
+
+    }
+
+    public static class Listener {
+
+        @Event.Subscribe(phase = EventPhase.POST, receiveCanceled = true)
+        public static int onEvent(TestEvent<String, ?> event, @Event.Result int result, @Event.Unpack("a name") String name) {
+            return result + 1;
+        }
+
+        @Event.Subscribe
+        public static int onEventDefault(TestEvent<?, ?> event, @Event.Result int result) {
+            return result + 1;
+        }
+
+        @Event.Subscribe(phase = EventPhase.PRE)
+        public static int onEventPre(TestEvent<?, ?> event, @Event.Result int result) {
+            return result + 1;
+        }
+
+    }
+
+    public static class SubListener extends Listener {
+    }
+
+    public static class EmptyListener {
+    }
+
+    public static class StaleEvent implements Event.WithResult<Integer> {
+
+        @Override
+        public Integer getDefaultResult() {
+            return 0;
+        }
+
+    }
+
+    public static class StaleListener {
+
+        @Event.Subscribe
+        public static int onEvent(StaleEvent event, @Event.Result int result) {
+            return result + 1;
+        }
+
+    }
+
+    /**
+     * Defines its own copy of a single class, and only has the given index, so the copy is looked up in that one.
+     */
+    private static final class IndexedLoader extends ClassLoader {
+
+        private final String className;
+        private final URL index;
+
+        private IndexedLoader(String className, URL index) {
+            super(EventIndexUnitTests.class.getClassLoader());
+            this.className = className;
+            this.index = index;
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.equals(className)) return super.loadClass(name, resolve);
+
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> type = findLoadedClass(name);
+                if (type != null) return type;
+
+                try (InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+                    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    byte[] buffer = new byte[4096];
+                    int read;
+                    while ((read = in.read(buffer)) != -1) {
+                        bytes.write(buffer, 0, read);
+                    }
+                    return defineClass(name, bytes.toByteArray(), 0, bytes.size());
+                } catch (IOException e) {
+                    throw new ClassNotFoundException(name, e);
+                }
+            }
+        }
+
+        @Override
+        public Enumeration<URL> getResources(String name) throws IOException {
+            return name.equals(LOCATION) ? Collections.enumeration(Collections.singletonList(index)) : super.getResources(name);
+        }
+
+    }
+
+}
@@ -0,0 +1,274 @@
+package mail.core.test.event;
+
+import mail.api.event.Event;
+import mail.api.event.EventPhase;
+import mail.core.event.EventBusImpl;
+import mail.core.event.EventMetadataCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+public class EventMetadataCacheUnitTests {
+
+    private static final String INDEX_LOCATION = "META-INF/mail/event-index";
+
+    private Path directory;
+    private Path jar;
+    private Path baseJar;
+    private Path cacheFile;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("mail-event-cache");
+        jar = directory.resolve("listeners.jar");
+        baseJar = directory.resolve("base.jar");
+        cacheFile = directory.resolve("event-metadata");
+        writeJar(false);
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        EventMetadataCache.install(null);
+        Files.deleteIfExists(jar);
+        Files.deleteIfExists(baseJar);
+        Files.deleteIfExists(cacheFile);
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    public void cachedAcrossRestarts() throws Exception {
+        EventMetadataCache cold = EventMetadataCache.open(cacheFile);
+        EventMetadataCache.install(cold);
+        Assertions.assertEquals(43, post(), "The scanned subscribers did not receive the event!");
+        Assertions.assertTrue(cold.getMisses() > 0, "The classes were not looked up in the cache!");
+        cold.save();
+
+        EventMetadataCache warm = EventMetadataCache.open(cacheFile);
+        EventMetadataCache.install(warm);
+        Assertions.assertEquals(43, post(), "The cached subscribers did not receive the event!");
+        Assertions.assertTrue(warm.getHits() > 0, "The classes were not found in the cache!");
+        Assertions.assertEquals(0, warm.getMisses(), "The classes were scanned again!");
+    }
+
+    @Test
+    public void changedJarIsScannedAgain() throws Exception {
+        EventMetadataCache cold = EventMetadataCache.open(cacheFile);
+        EventMetadataCache.install(cold);
+        post();
+        cold.save();
+
+        writeJar(true);
+        EventMetadataCache warm = EventMetadataCache.open(cacheFile);
+        EventMetadataCache.install(warm);
+        Assertions.assertEquals(43, post(), "The scanned subscribers did not receive the event!");
+        Assertions.assertEquals(0, warm.getHits(), "Classes from a changed jar were found in the cache!");
+    }
+
+    @Test
+    public void changedSuperclassIsScannedAgain() throws Exception {
+        writeBaseJar(BaseA.class);
+        EventMetadataCache cold = EventMetadataCache.open(cacheFile);
+        EventMetadataCache.install(cold);
+        Assertions.assertEquals(1, postToSubListener(), "The inherited subscriber did not receive the event!");
+        cold.save();
+
+        // The listener's own jar stays the same, but the subscriber it inherits is replaced
+        writeBaseJar(BaseB.class);
+        EventMetadataCache warm = EventMetadataCache.open(cacheFile);
+        EventMetadataCache.install(warm);
+        Assertions.assertEquals(2, postToSubListener(), "The new inherited subscriber did not receive the event!");
+        Assertions.assertTrue(warm.getMisses() > 0, "The subclass of a changed class was found in the cache!");
+    }
+
+    @Test
+    public void corruptCacheIsIgnored() throws Exception {
+        Files.write(cacheFile, new byte[]{'M', 'A', 'I', 'L', 0, 0, 0, 1, 0x7F});
+
+        EventMetadataCache cache = EventMetadataCache.open(cacheFile);
+        EventMetadataCache.install(cache);
+        Assertions.assertEquals(43, post(), "The scanned subscribers did not receive the event!");
+        Assertions.assertEquals(0, cache.getHits(), "Classes were found in a corrupt cache!");
+        cache.save();
+    }
+
+    /**
+     * Loads the listeners from the jar in a new class loader, like a restart would, and posts an event to them.
+     */
+    @SuppressWarnings("unchecked")
+    private int post() throws Exception {
+        try (JarLoader loader = new JarLoader(jar)) {
+            EventBusImpl eventBus = new EventBusImpl();
+            eventBus.register(loader.loadClass(StaticListener.class.getName()));
+            eventBus.register(loader.loadClass(Listener.class.getName()).newInstance());
+
+            Event.WithResult<Integer> event = (Event.WithResult<Integer>) loader.loadClass(TestEvent.class.getName()).newInstance();
+            return eventBus.post(event);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private int postToSubListener() throws Exception {
+        try (JarLoader loader = new JarLoader(jar, baseJar)) {
+            EventBusImpl eventBus = new EventBusImpl();
+            eventBus.register(loader.loadClass(SubListener.class.getName()).newInstance());
+
+            Event.WithResult<Integer> event = (Event.WithResult<Integer>) loader.loadClass(TestEvent.class.getName()).newInstance();
+            return eventBus.post(event);
+        }
+    }
+
+    private void writeJar(boolean changed) throws IOException {
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            for (Class<?> type : new Class<?>[]{TestEvent.class, StaticListener.class, Listener.class, SubListener.class}) {
+                String name = type.getName().replace('.', '/') + ".class";
+                out.putNextEntry(new JarEntry(name));
+                try (InputStream in = type.getClassLoader().getResourceAsStream(name)) {
+                    copy(in, out);
+                }
+            }
+            if (changed) {
+                out.putNextEntry(new JarEntry("changed.txt"));
+                out.write(1);
+            }
+        }
+    }
+
+    /**
+     * Writes the given base class to its own jar under the name of {@link BaseA}, which {@link SubListener} extends.
+     * Both base classes have names of the same length, so renaming one is only a matter of replacing its name.
+     */
+    private void writeBaseJar(Class<?> base) throws IOException {
+        String name = BaseA.class.getName().replace('.', '/') + ".class";
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (InputStream in = base.getClassLoader().getResourceAsStream(base.getName().replace('.', '/') + ".class")) {
+            copy(in, bytes);
+        }
+        byte[] renamed = new String(bytes.toByteArray(), StandardCharsets.ISO_8859_1)
+                .replace(base.getName().replace('.', '/'), BaseA.class.getName().replace('.', '/'))
+                .getBytes(StandardCharsets.ISO_8859_1);
+
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(baseJar))) {
+            out.putNextEntry(new JarEntry(name));
+            out.write(renamed);
+            // Makes sure the jar's size changes along with its contents
+            if (base != BaseA.class) {
+                out.putNextEntry(new JarEntry("changed.txt"));
+                out.write(1);
+            }
+        }
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+    }
+
+    /**
+     * Loads this test's listeners from the jar instead of the test classpath, and hides the event index, so they
+     * need to be scanned or found in the cache.
+     */
+    private static final class JarLoader extends URLClassLoader {
+
+        private JarLoader(Path... jars) throws IOException {
+            super(toURLs(jars), EventMetadataCacheUnitTests.class.getClassLoader());
+        }
+
+        private static URL[] toURLs(Path[] jars) throws IOException {
+            URL[] urls = new URL[jars.length];
+            for (int i = 0; i < jars.length; i++) {
+                urls[i] = jars[i].toUri().toURL();
+            }
+            return urls;
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (!name.startsWith(EventMetadataCacheUnitTests.class.getName() + "$")) {
+                return super.loadClass(name, resolve);
+            }
+
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> type = findLoadedClass(name);
+                return type != null ? type : findClass(name);
+            }
+        }
+
+        @Override
+        public Enumeration<URL> getResources(String name) throws IOException {
+            return name.equals(INDEX_LOCATION) ? findResources(name) : super.getResources(name);
+        }
+
+    }
+
+    public static class TestEvent implements Event.WithResult<Integer> {
+
+        @Property("value")
+        public int getValue() {
+            return 42;
+        }
+
+        @Override
+        public Integer getDefaultResult() {
+            return 0;
+        }
+
+    }
+
+    public static class StaticListener {
+
+        @Event.Subscribe
+        public static int onEvent(TestEvent event, @Event.Result int result) {
+            return result + 1;
+        }
+
+    }
+
+    public static class Listener {
+
+        @Event.Subscribe(phase = EventPhase.POST)
+        public int onEvent(TestEvent event, @Event.Result int result, @Event.Unpack("value") int value) {
+            return result + value;
+        }
+
+    }
+
+    public static class BaseA {
+
+        @Event.Subscribe
+        public int onA(TestEvent event, @Event.Result int result) {
+            return result + 1;
+        }
+
+    }
+
+    // Stands in for a later version of BaseA
+    public static class BaseB {
+
+        @Event.Subscribe
+        public int onB(TestEvent event, @Event.Result int result) {
+            return result + 2;
+        }
+
+    }
+
+    public static class SubListener extends BaseA {
+    }
+
+}
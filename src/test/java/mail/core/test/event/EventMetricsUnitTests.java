@@ -0,0 +1,114 @@
+package mail.core.test.event;
+
+import mail.api.event.Event;
+import mail.api.event.EventBus;
+import mail.core.event.EventBusImpl;
+import mail.core.event.EventMetrics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+public class EventMetricsUnitTests {
+
+    @Test
+    public void disabledByDefault() {
+        EventBusImpl eventBus = new EventBusImpl();
+        Assertions.assertNull(eventBus.getMetrics(), "Metrics were enabled by default!");
+    }
+
+    @Test
+    public void countPosts() throws NoSuchMethodException {
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(Listener.class);
+        eventBus.post(new TestEvent());
+
+        EventMetrics metrics = eventBus.enableMetrics();
+        for (int i = 0; i < 10; i++) {
+            eventBus.post(new TestEvent());
+        }
+        eventBus.post(new TestSubEvent());
+
+        EventMetrics.Snapshot snapshot = metrics.snapshot();
+        Assertions.assertEquals(10, snapshot.getPostCount(TestEvent.class), "Unexpected post count!");
+        Assertions.assertEquals(1, snapshot.getPostCount(TestSubEvent.class), "Unexpected post count for the subtype!");
+
+        EventMetrics.HandlerMetrics handler = snapshot.getHandler(Listener.class.getMethod("onEvent", TestEvent.class));
+        Assertions.assertNotNull(handler, "The handler has no metrics!");
+        Assertions.assertEquals(11, handler.getInvocations(), "Unexpected invocation count!");
+        Assertions.assertEquals(11, sum(handler.getHistogram()), "The latency histogram is missing invocations!");
+        Assertions.assertTrue(handler.getPercentileNanos(0.5) <= handler.getPercentileNanos(1),
+                "Percentiles are out of order!");
+    }
+
+    @Test
+    public void countManualPostsOnce() throws NoSuchMethodException {
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(Listener.class);
+        EventMetrics metrics = eventBus.enableMetrics();
+
+        EventBus.PostedEvent posted = eventBus.postManually(new TestEvent());
+        posted.firePre();
+        posted.fireDefault();
+        posted.firePost();
+        posted = eventBus.prepare(TestEvent.class).stage(new TestEvent());
+        posted.firePre();
+        posted.fireDefault();
+        posted.firePost();
+        eventBus.postAll(Arrays.asList(new TestEvent(), new TestEvent()));
+
+        EventMetrics.Snapshot snapshot = metrics.snapshot();
+        Assertions.assertEquals(4, snapshot.getPostCount(TestEvent.class), "A post was counted once per phase!");
+        Assertions.assertEquals(4, snapshot.getHandler(Listener.class.getMethod("onEvent", TestEvent.class))
+                .getInvocations(), "Unexpected invocation count!");
+    }
+
+    @Test
+    public void disable() throws NoSuchMethodException {
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(Listener.class);
+        EventMetrics metrics = eventBus.enableMetrics();
+        eventBus.post(new TestEvent());
+        eventBus.disableMetrics();
+        eventBus.post(new TestEvent());
+
+        Assertions.assertNull(eventBus.getMetrics(), "Metrics are still enabled!");
+        EventMetrics.Snapshot snapshot = metrics.snapshot();
+        Assertions.assertEquals(1, snapshot.getPostCount(TestEvent.class), "Posts were counted after disabling!");
+        Assertions.assertEquals(1, snapshot.getHandler(Listener.class.getMethod("onEvent", TestEvent.class))
+                .getInvocations(), "Invocations were counted after disabling!");
+    }
+
+    @Test
+    public void reset() {
+        EventBusImpl eventBus = new EventBusImpl();
+        EventMetrics metrics = eventBus.enableMetrics();
+        eventBus.post(new TestEvent());
+        metrics.reset();
+
+        Assertions.assertEquals(0, metrics.snapshot().getPostCount(TestEvent.class), "The post count was not reset!");
+    }
+
+    private static long sum(long[] values) {
+        long sum = 0;
+        for (long value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    public static class TestEvent implements Event {
+    }
+
+    public static class TestSubEvent extends TestEvent {
+    }
+
+    public static class Listener {
+
+        @Event.Subscribe
+        public static void onEvent(TestEvent event) {
+        }
+
+    }
+
+}
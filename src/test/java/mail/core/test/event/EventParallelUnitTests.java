@@ -0,0 +1,188 @@
+package mail.core.test.event;
+
+import mail.api.event.Event;
+import mail.api.event.EventPhase;
+import mail.core.event.EventBusImpl;
+import mail.core.event.ParallelSafe;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class EventParallelUnitTests {
+
+    private static final int LISTENERS = 64;
+
+    @Test
+    public void allHandlersRun() {
+        EventBusImpl eventBus = new EventBusImpl();
+        for (int i = 0; i < LISTENERS; i++) {
+            eventBus.register(new Listener());
+        }
+
+        TestEvent event = eventBus.post(new TestEvent());
+        Assertions.assertEquals(LISTENERS, event.pre.get(), "Not every PRE handler received the event!");
+        Assertions.assertEquals(LISTENERS, event.received.get(), "Not every parallel-safe handler received the event!");
+        Assertions.assertEquals(LISTENERS, event.post.get(), "Not every POST handler received the event!");
+    }
+
+    @Test
+    public void phasesAreBarriers() {
+        EventBusImpl eventBus = new EventBusImpl();
+        for (int i = 0; i < LISTENERS; i++) {
+            eventBus.register(new Listener());
+        }
+
+        TestEvent event = eventBus.post(new TestEvent());
+        Assertions.assertFalse(event.earlyDefault, "A DEFAULT handler ran before every PRE handler had finished!");
+        Assertions.assertFalse(event.earlyPost, "A POST handler ran before every DEFAULT handler had finished!");
+    }
+
+    @Test
+    public void unpack() {
+        EventBusImpl eventBus = new EventBusImpl();
+        for (int i = 0; i < LISTENERS; i++) {
+            eventBus.register(new UnpackListener());
+        }
+
+        TestEvent event = eventBus.post(new TestEvent());
+        Assertions.assertEquals(LISTENERS * 42, event.unpacked.get(), "The property was not unpacked!");
+        Assertions.assertEquals(1, event.computed.get(), "The property was computed more than once in a post!");
+        Assertions.assertEquals(Thread.currentThread(), event.computedBy,
+                "The property was not computed on the posting thread before fanning out!");
+    }
+
+    @Test
+    public void exceptionsPropagate() {
+        EventBusImpl eventBus = new EventBusImpl();
+        for (int i = 0; i < LISTENERS; i++) {
+            eventBus.register(new Listener());
+        }
+        eventBus.register(ThrowingListener.class);
+
+        IllegalStateException e = Assertions.assertThrows(IllegalStateException.class, () -> eventBus.post(new TestEvent()));
+        Assertions.assertTrue(e.getCause() instanceof UnsupportedOperationException,
+                "The exception thrown by the handler was not passed on!");
+    }
+
+    @Test
+    public void cancelableEventsRunInOrder() {
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(CancelableListener.class);
+
+        TestCancelableEvent event = eventBus.post(new TestCancelableEvent());
+        Assertions.assertEquals(Thread.currentThread(), event.thread,
+                "Handlers of a cancelable event were not run on the posting thread!");
+    }
+
+    @Test
+    public void resultHandlersCannotBeParallelSafe() {
+        EventBusImpl eventBus = new EventBusImpl();
+        Assertions.assertThrows(IllegalStateException.class, () -> eventBus.register(ResultListener.class),
+                "A parallel-safe handler that deals with results was registered!");
+    }
+
+    public static class TestEvent implements Event {
+
+        private final AtomicInteger pre = new AtomicInteger();
+        private final AtomicInteger received = new AtomicInteger();
+        private final AtomicInteger post = new AtomicInteger();
+        private final AtomicInteger unpacked = new AtomicInteger();
+        private final AtomicInteger computed = new AtomicInteger();
+        private volatile Thread computedBy;
+        private volatile boolean earlyDefault = false;
+        private volatile boolean earlyPost = false;
+
+        @Property("value")
+        public int getValue() {
+            computed.incrementAndGet();
+            computedBy = Thread.currentThread();
+            return 42;
+        }
+
+    }
+
+    private static class TestCancelableEvent implements Event.Cancelable {
+
+        private Thread thread;
+
+    }
+
+    private static class TestEventWithResult implements Event.WithResult<Integer> {
+
+        @Override
+        public Integer getDefaultResult() {
+            return 0;
+        }
+
+    }
+
+    public static class Listener {
+
+        @ParallelSafe
+        @Event.Subscribe(phase = EventPhase.PRE)
+        public void onPre(TestEvent event) {
+            event.pre.incrementAndGet();
+        }
+
+        @ParallelSafe
+        @Event.Subscribe
+        public void onEvent(TestEvent event) {
+            if (event.pre.get() != LISTENERS) event.earlyDefault = true;
+            event.received.incrementAndGet();
+        }
+
+        @Event.Subscribe(phase = EventPhase.POST)
+        public void onPost(TestEvent event) {
+            if (event.received.get() != LISTENERS) event.earlyPost = true;
+            event.post.incrementAndGet();
+        }
+
+    }
+
+    public static class UnpackListener {
+
+        @ParallelSafe
+        @Event.Subscribe
+        public void onEvent(TestEvent event, @Event.Unpack("value") int value) {
+            event.unpacked.addAndGet(value);
+        }
+
+    }
+
+    public static class ThrowingListener {
+
+        @ParallelSafe
+        @Event.Subscribe
+        public static void onEvent(TestEvent event) {
+            throw new UnsupportedOperationException();
+        }
+
+    }
+
+    public static class CancelableListener {
+
+        @ParallelSafe
+        @Event.Subscribe
+        public static void onEvent(TestCancelableEvent event) {
+            event.thread = Thread.currentThread();
+        }
+
+        @ParallelSafe
+        @Event.Subscribe
+        public static void onEventAgain(TestCancelableEvent event) {
+        }
+
+    }
+
+    public static class ResultListener {
+
+        @ParallelSafe
+        @Event.Subscribe
+        public static int onEvent(TestEventWithResult event, @Event.Result int result) {
+            return result + 1;
+        }
+
+    }
+
+}
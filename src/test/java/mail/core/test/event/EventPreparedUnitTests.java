@@ -0,0 +1,172 @@
+package mail.core.test.event;
+
+import mail.api.event.Event;
+import mail.api.event.EventBus;
+import mail.api.event.EventPhase;
+import mail.core.event.EventBusImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class EventPreparedUnitTests {
+
+    @Test
+    public void post() {
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(Listener.class);
+        EventBusImpl.PreparedEvent<TestEvent> prepared = eventBus.prepare(TestEvent.class);
+
+        for (int i = 0; i < 3; i++) {
+            TestEvent event = prepared.post(new TestEvent());
+            Assertions.assertEquals(3, event.received, "The prepared event was not posted through every phase!");
+        }
+    }
+
+    @Test
+    public void followsRegistrations() {
+        EventBusImpl eventBus = new EventBusImpl();
+        EventBusImpl.PreparedEvent<TestEvent> prepared = eventBus.prepare(TestEvent.class);
+        Assertions.assertFalse(prepared.hasListeners(), "The prepared event had listeners before any were registered!");
+        Assertions.assertEquals(0, prepared.post(new TestEvent()).received, "The event was received without listeners!");
+
+        EventBusImpl.Registration registration = eventBus.subscribe(Listener.class);
+        Assertions.assertTrue(prepared.hasListeners(), "The prepared event did not see the new listener!");
+        Assertions.assertEquals(3, prepared.post(new TestEvent()).received, "The new listener did not receive the event!");
+
+        registration.close();
+        Assertions.assertEquals(0, prepared.post(new TestEvent()).received, "The removed listener received the event!");
+    }
+
+    @Test
+    public void postForResult() {
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(Listener.class);
+        EventBusImpl.PreparedEvent<TestEventWithResult> prepared = eventBus.prepare(TestEventWithResult.class);
+
+        int result = prepared.postForResult(new TestEventWithResult());
+        Assertions.assertEquals(2, result, "The result of the prepared event was not returned!");
+        Assertions.assertThrows(IllegalStateException.class,
+                () -> eventBus.prepare(TestEvent.class).postForResult(new TestEvent()),
+                "An event without a result was posted for one!");
+    }
+
+    @Test
+    public void stage() {
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(Listener.class);
+        EventBusImpl.PreparedEvent<TestCancelableEvent> prepared = eventBus.prepare(TestCancelableEvent.class);
+
+        TestCancelableEvent first = new TestCancelableEvent(true);
+        EventBus.PostedEvent posted = prepared.stage(first);
+        Assertions.assertTrue(posted.wasCancelled(), "The staged event was not canceled!");
+        posted.firePre();
+        posted.fireDefault();
+        posted.firePost();
+        Assertions.assertEquals(1, first.received, "Only the handler that receives canceled events should have run!");
+
+        TestCancelableEvent second = new TestCancelableEvent(false);
+        posted = prepared.stage(second);
+        Assertions.assertFalse(posted.wasCancelled(), "The cancellation of the previous staged event was kept!");
+        posted.fireDefault();
+        Assertions.assertThrows(IllegalStateException.class, posted::firePre, "A staged event went back a phase!");
+        posted.firePost();
+        Assertions.assertEquals(2, second.received, "The staged event was not posted through the fired phases!");
+    }
+
+    @Test
+    public void stageWithResult() {
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(Listener.class);
+        EventBusImpl.PreparedEvent<TestEventWithResult> prepared = eventBus.prepare(TestEventWithResult.class);
+
+        for (int i = 0; i < 3; i++) {
+            EventBus.PostedEvent.WithResult<Integer> posted = prepared.stage(new TestEventWithResult());
+            Assertions.assertEquals(Integer.valueOf(0), posted.getResult(), "The result was not reset for the next event!");
+            posted.firePre();
+            posted.fireDefault();
+            posted.firePost();
+            Assertions.assertEquals(Integer.valueOf(2), posted.getResult(), "The result of the staged event was wrong!");
+        }
+    }
+
+    @Test
+    public void onlyPreparedClass() {
+        EventBusImpl eventBus = new EventBusImpl();
+        EventBusImpl.PreparedEvent<TestEvent> prepared = eventBus.prepare(TestEvent.class);
+        Assertions.assertThrows(IllegalStateException.class, () -> prepared.post(new TestSubEvent()),
+                "A subclass was posted through the plan of its superclass!");
+    }
+
+    public static class TestEvent implements Event {
+
+        private int received;
+
+    }
+
+    public static class TestSubEvent extends TestEvent {
+    }
+
+    public static class TestCancelableEvent implements Event.Cancelable {
+
+        private final boolean cancel;
+        private int received;
+
+        public TestCancelableEvent(boolean cancel) {
+            this.cancel = cancel;
+        }
+
+    }
+
+    public static class TestEventWithResult implements Event.WithResult<Integer> {
+
+        @Override
+        public Integer getDefaultResult() {
+            return 0;
+        }
+
+    }
+
+    public static class Listener {
+
+        @Event.Subscribe(phase = EventPhase.PRE)
+        public static void onPre(TestEvent event) {
+            event.received++;
+        }
+
+        @Event.Subscribe
+        public static void onEvent(TestEvent event) {
+            event.received++;
+        }
+
+        @Event.Subscribe(phase = EventPhase.POST)
+        public static void onPost(TestEvent event) {
+            event.received++;
+        }
+
+        @Event.Subscribe(phase = EventPhase.CANCELLATION)
+        public static boolean onCancellation(TestCancelableEvent event, @Event.Result boolean canceled) {
+            return canceled || event.cancel;
+        }
+
+        @Event.Subscribe
+        public static void onCancelable(TestCancelableEvent event) {
+            event.received++;
+        }
+
+        @Event.Subscribe(phase = EventPhase.POST, receiveCanceled = true)
+        public static void onCancelablePost(TestCancelableEvent event) {
+            event.received++;
+        }
+
+        @Event.Subscribe(phase = EventPhase.PRE)
+        public static int onPreResult(TestEventWithResult event, @Event.Result int result) {
+            return result + 1;
+        }
+
+        @Event.Subscribe(phase = EventPhase.POST)
+        public static int onPostResult(TestEventWithResult event, @Event.Result int result) {
+            return result + 1;
+        }
+
+    }
+
+}
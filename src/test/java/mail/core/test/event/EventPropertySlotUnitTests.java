@@ -0,0 +1,180 @@
+package mail.core.test.event;
+
+import mail.api.event.Event;
+import mail.api.event.EventBus;
+import mail.api.event.EventPhase;
+import mail.core.event.EventBusImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class EventPropertySlotUnitTests {
+
+    @Test
+    public void computedOncePerPost() {
+        EventBus eventBus = new EventBusImpl();
+        eventBus.register(new Listener());
+        eventBus.register(new Listener());
+
+        TestEvent event = eventBus.post(new TestEvent());
+        Assertions.assertEquals(1, event.computed, "The immutable property was computed more than once in a post!");
+        Assertions.assertEquals(4 * TestEvent.VALUE, event.unpacked, "Not every handler received the cached value!");
+    }
+
+    @Test
+    public void recomputedForEveryPost() {
+        EventBus eventBus = new EventBusImpl();
+        eventBus.register(new Listener());
+
+        TestEvent event = new TestEvent();
+        eventBus.post(event);
+        eventBus.post(event);
+        Assertions.assertEquals(2, event.computed, "A cached value was kept from the previous post!");
+    }
+
+    @Test
+    public void supertypeAndSubtypeSlots() {
+        EventBus eventBus = new EventBusImpl();
+        eventBus.register(new Listener());
+        eventBus.register(SubListener.class);
+
+        TestSubEvent event = eventBus.post(new TestSubEvent());
+        Assertions.assertEquals(1, event.computed, "The supertype's property was computed more than once!");
+        Assertions.assertEquals(1, event.subComputed, "The subtype's property was computed more than once!");
+        Assertions.assertEquals(TestSubEvent.NAME, event.name, "The subtype's slot clashed with the supertype's!");
+        Assertions.assertEquals(2 * TestEvent.VALUE, event.unpacked, "The supertype's slot clashed with the subtype's!");
+    }
+
+    @Test
+    public void cachesNull() {
+        EventBus eventBus = new EventBusImpl();
+        eventBus.register(NullListener.class);
+        eventBus.register(new NullListener());
+
+        NullEvent event = eventBus.post(new NullEvent());
+        Assertions.assertEquals(1, event.computed, "A null value was not cached!");
+        Assertions.assertEquals(2, event.received, "A cached null was not passed on!");
+    }
+
+    @Test
+    public void nestedPostsHaveTheirOwnSlots() {
+        EventBus eventBus = new EventBusImpl();
+        eventBus.register(new Listener());
+        eventBus.register(new NestingListener(eventBus));
+
+        TestEvent outer = new TestEvent();
+        eventBus.post(outer);
+        Assertions.assertEquals(1, outer.computed, "The outer post's cache was lost to the nested post!");
+        Assertions.assertEquals(2 * TestEvent.VALUE, outer.unpacked, "The outer post received the nested post's values!");
+        Assertions.assertEquals(1, outer.nested.computed, "The nested post used the outer post's cache!");
+    }
+
+    public static class TestEvent implements Event {
+
+        private static final int VALUE = 7;
+
+        // Not private, so they can be read through the subclass
+        int computed;
+        int unpacked;
+        private boolean inner;
+        private TestEvent nested;
+
+        @Property("value")
+        public int getValue() {
+            computed++;
+            return VALUE;
+        }
+
+    }
+
+    public static class TestSubEvent extends TestEvent {
+
+        private static final String NAME = "sub";
+
+        private int subComputed;
+        private String name;
+
+        @Property("name")
+        public String getName() {
+            subComputed++;
+            return NAME;
+        }
+
+    }
+
+    public static class NullEvent implements Event {
+
+        private int computed;
+        private int received;
+
+        @Property("nothing")
+        public Object getNothing() {
+            computed++;
+            return null;
+        }
+
+    }
+
+    public static class Listener {
+
+        @Event.Subscribe(phase = EventPhase.PRE)
+        public void onPre(TestEvent event, @Event.Unpack("value") int value) {
+            event.unpacked += value;
+        }
+
+        @Event.Subscribe(phase = EventPhase.POST)
+        public void onPost(TestEvent event, @Event.Unpack("value") int value) {
+            event.unpacked += value;
+        }
+
+    }
+
+    public static class SubListener {
+
+        @Event.Subscribe
+        public static void onEvent(TestSubEvent event, @Event.Unpack("name") String name) {
+            event.name = name;
+        }
+
+        @Event.Subscribe(phase = EventPhase.POST)
+        public static void onPost(TestSubEvent event, @Event.Unpack("name") String name) {
+            Assertions.assertEquals(TestSubEvent.NAME, name, "The cached subtype value was lost!");
+        }
+
+    }
+
+    public static class NullListener {
+
+        @Event.Subscribe
+        public static void onEvent(NullEvent event, @Event.Unpack("nothing") Object nothing) {
+            Assertions.assertNull(nothing, "The null value was not passed on!");
+            event.received++;
+        }
+
+        @Event.Subscribe(phase = EventPhase.POST)
+        public void onPost(NullEvent event, @Event.Unpack("nothing") Object nothing) {
+            Assertions.assertNull(nothing, "The cached null value was not passed on!");
+            event.received++;
+        }
+
+    }
+
+    public static class NestingListener {
+
+        private final EventBus eventBus;
+
+        public NestingListener(EventBus eventBus) {
+            this.eventBus = eventBus;
+        }
+
+        @Event.Subscribe
+        public void onEvent(TestEvent event) {
+            if (!event.inner) {
+                TestEvent nested = new TestEvent();
+                nested.inner = true;
+                event.nested = eventBus.post(nested);
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,135 @@
+package mail.core.test.event;
+
+import mail.api.event.Event;
+import mail.core.event.EventBusImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class EventRegistrationHandleUnitTests {
+
+    @Test
+    public void close() {
+        EventBusImpl eventBus = new EventBusImpl();
+        Listener listener = new Listener();
+        EventBusImpl.Registration registration = eventBus.subscribe(listener);
+        Assertions.assertTrue(registration.isActive(), "The registration is not active!");
+
+        eventBus.post(new TestEvent());
+        registration.close();
+        eventBus.post(new TestEvent());
+
+        Assertions.assertEquals(1, listener.received, "The listener received events after being closed!");
+        Assertions.assertFalse(registration.isActive(), "The registration is still active!");
+        Assertions.assertFalse(eventBus.hasListeners(TestEvent.class), "The bus still has listeners!");
+
+        // Closing twice should do nothing
+        registration.close();
+    }
+
+    @Test
+    public void closeStatic() {
+        EventBusImpl eventBus = new EventBusImpl();
+        EventBusImpl.Registration registration = eventBus.subscribe(StaticListener.class);
+        Assertions.assertTrue(eventBus.hasListeners(TestEvent.class), "The static listener was not registered!");
+
+        registration.close();
+        Assertions.assertFalse(eventBus.hasListeners(TestEvent.class), "The static listener was not unregistered!");
+    }
+
+    @Test
+    public void closeAfterReregister() {
+        EventBusImpl eventBus = new EventBusImpl();
+        Listener listener = new Listener();
+        EventBusImpl.Registration first = eventBus.subscribe(listener);
+        eventBus.unregister(listener);
+        Assertions.assertFalse(first.isActive(), "The registration is still active after unregistering!");
+
+        EventBusImpl.Registration second = eventBus.subscribe(listener);
+        first.close();
+        eventBus.post(new TestEvent());
+
+        Assertions.assertEquals(1, listener.received, "Closing a stale registration removed a newer one!");
+        Assertions.assertTrue(second.isActive(), "The newer registration is not active!");
+    }
+
+    @Test
+    public void unregisterAll() {
+        EventBusImpl eventBus = new EventBusImpl();
+        Listener kept = new Listener();
+        eventBus.register(kept);
+
+        List<Listener> listeners = new ArrayList<>();
+        List<EventBusImpl.Registration> registrations = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Listener listener = new Listener();
+            listeners.add(listener);
+            registrations.add(eventBus.subscribe(listener));
+        }
+        registrations.add(eventBus.subscribe(StaticListener.class));
+
+        eventBus.unregisterAll(registrations);
+        eventBus.post(new TestEvent());
+
+        Assertions.assertEquals(1, kept.received, "The remaining listener did not receive the event!");
+        for (Listener listener : listeners) {
+            Assertions.assertEquals(0, listener.received, "A listener received the event after being unregistered!");
+        }
+    }
+
+    @Test
+    public void unregisterAllFromOtherBus() {
+        EventBusImpl eventBus = new EventBusImpl();
+        EventBusImpl.Registration registration = new EventBusImpl().subscribe(new Listener());
+
+        List<EventBusImpl.Registration> registrations = new ArrayList<>();
+        registrations.add(registration);
+        Assertions.assertThrows(IllegalStateException.class, () -> eventBus.unregisterAll(registrations));
+    }
+
+    @Test
+    public void unregisterAllMixedBuses() {
+        EventBusImpl eventBus = new EventBusImpl();
+        Listener listener = new Listener();
+        EventBusImpl.Registration registration = eventBus.subscribe(listener);
+
+        List<EventBusImpl.Registration> registrations = new ArrayList<>();
+        registrations.add(registration);
+        registrations.add(new EventBusImpl().subscribe(new Listener()));
+        Assertions.assertThrows(IllegalStateException.class, () -> eventBus.unregisterAll(registrations));
+
+        Assertions.assertTrue(registration.isActive(), "A registration was removed even though the call failed!");
+        eventBus.post(new TestEvent());
+        Assertions.assertEquals(1, listener.received, "The listener stopped receiving events!");
+
+        registration.close();
+        eventBus.post(new TestEvent());
+        Assertions.assertEquals(1, listener.received, "The listener could not be removed after the failed call!");
+        Assertions.assertFalse(eventBus.hasListeners(TestEvent.class), "The bus still has listeners!");
+    }
+
+    private static class TestEvent implements Event {
+    }
+
+    public static class Listener {
+
+        private int received;
+
+        @Event.Subscribe
+        public void onEvent(TestEvent event) {
+            received++;
+        }
+
+    }
+
+    public static class StaticListener {
+
+        @Event.Subscribe
+        public static void onEvent(TestEvent event) {
+        }
+
+    }
+
+}
@@ -2,10 +2,14 @@ package mail.core.test.event;
 
 import mail.api.event.Event;
 import mail.api.event.EventBus;
+import mail.api.event.EventPhase;
 import mail.core.event.EventBusImpl;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+import java.util.List;
+
 public class EventResultUnitTests {
 
     @Test
@@ -34,6 +38,63 @@ public class EventResultUnitTests {
         Assertions.assertFalse(result, "Expected false!");
     }
 
+    @Test
+    public void chainPrimitiveResults() {
+        EventBus eventBus = new EventBusImpl();
+        eventBus.register(NoResultListener.class);
+        eventBus.register(PrimitiveChainListener.class);
+
+        Assertions.assertEquals(Integer.valueOf(12), eventBus.post(new IntEvent()), "The int result was not chained!");
+        Assertions.assertEquals(Long.valueOf(1L << 40), eventBus.post(new LongEvent()), "The long result was not chained!");
+        Assertions.assertEquals(Float.valueOf(7.5f), eventBus.post(new FloatEvent()), "The float result was not chained!");
+        Assertions.assertEquals(Double.valueOf(0.25), eventBus.post(new DoubleEvent()), "The double result was not chained!");
+        Assertions.assertEquals(Short.valueOf((short) -2), eventBus.post(new ShortEvent()), "The short result was not chained!");
+        Assertions.assertEquals(Character.valueOf('b'), eventBus.post(new CharEvent()), "The char result was not chained!");
+    }
+
+    @Test
+    public void chainMixedResults() {
+        EventBus eventBus = new EventBusImpl();
+        eventBus.register(PrimitiveChainListener.class);
+        eventBus.register(BoxedChainListener.class);
+
+        // The boxed handler forces the whole chain to be boxed, but the primitive handlers still see every result
+        Assertions.assertEquals(Float.valueOf(9.5f), eventBus.post(new FloatEvent()), "The mixed results were not chained!");
+    }
+
+    @Test
+    public void chainResultsThroughParent() {
+        EventBusImpl parent = new EventBusImpl();
+        EventBusImpl child = parent.createChild(true);
+        parent.register(BoxedChainListener.class);
+        child.register(PrimitiveChainListener.class);
+
+        Assertions.assertEquals(Float.valueOf(9.5f), child.post(new FloatEvent()),
+                "The result was not passed on between buses that chain it differently!");
+    }
+
+    @Test
+    public void chainResultsManually() {
+        EventBus eventBus = new EventBusImpl();
+        eventBus.register(PrimitiveChainListener.class);
+
+        EventBus.PostedEvent.WithResult<Integer> posted = eventBus.postManually(new IntEvent());
+        posted.firePre();
+        Assertions.assertEquals(Integer.valueOf(10), posted.getResult(), "The result was not kept between phases!");
+        posted.fireDefault();
+        posted.firePost();
+        Assertions.assertEquals(Integer.valueOf(12), posted.getResult(), "The result was not chained after being read!");
+    }
+
+    @Test
+    public void chainResultsInBatches() {
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(PrimitiveChainListener.class);
+
+        List<Integer> results = eventBus.postAllWithResults(Arrays.asList(new IntEvent(), new IntEvent()));
+        Assertions.assertEquals(Arrays.asList(12, 12), results, "The results of the batch were not chained separately!");
+    }
+
     private static class TestEvent implements Event.WithResult<Boolean> {
 
         @Override
@@ -43,6 +104,60 @@ public class EventResultUnitTests {
 
     }
 
+    private static class IntEvent implements Event.WithResult<Integer> {
+
+        @Override
+        public Integer getDefaultResult() {
+            return 5;
+        }
+
+    }
+
+    private static class LongEvent implements Event.WithResult<Long> {
+
+        @Override
+        public Long getDefaultResult() {
+            return 1L;
+        }
+
+    }
+
+    private static class FloatEvent implements Event.WithResult<Float> {
+
+        @Override
+        public Float getDefaultResult() {
+            return 5f;
+        }
+
+    }
+
+    private static class DoubleEvent implements Event.WithResult<Double> {
+
+        @Override
+        public Double getDefaultResult() {
+            return 1d;
+        }
+
+    }
+
+    private static class ShortEvent implements Event.WithResult<Short> {
+
+        @Override
+        public Short getDefaultResult() {
+            return 2;
+        }
+
+    }
+
+    private static class CharEvent implements Event.WithResult<Character> {
+
+        @Override
+        public Character getDefaultResult() {
+            return 'a';
+        }
+
+    }
+
     public static class NoResultListener {
 
         @Event.Subscribe
@@ -70,6 +185,54 @@ public class EventResultUnitTests {
 
     }
 
+    public static class PrimitiveChainListener {
+
+        @Event.Subscribe(phase = EventPhase.PRE)
+        public static int onIntPre(IntEvent event, @Event.Result int prevResult) {
+            return prevResult * 2;
+        }
+
+        @Event.Subscribe(phase = EventPhase.POST)
+        public static int onInt(IntEvent event, @Event.Result int prevResult) {
+            return prevResult + 2;
+        }
+
+        @Event.Subscribe
+        public static long onLong(LongEvent event, @Event.Result long prevResult) {
+            return prevResult << 40;
+        }
+
+        @Event.Subscribe(phase = EventPhase.PRE)
+        public static float onFloat(FloatEvent event, @Event.Result float prevResult) {
+            return prevResult * 1.5f;
+        }
+
+        @Event.Subscribe
+        public static double onDouble(DoubleEvent event, @Event.Result double prevResult) {
+            return prevResult / 4;
+        }
+
+        @Event.Subscribe
+        public static short onShort(ShortEvent event, @Event.Result short prevResult) {
+            return (short) -prevResult;
+        }
+
+        @Event.Subscribe
+        public static char onChar(CharEvent event, @Event.Result char prevResult) {
+            return (char) (prevResult + 1);
+        }
+
+    }
+
+    public static class BoxedChainListener {
+
+        @Event.Subscribe(phase = EventPhase.POST)
+        public static Float onFloat(FloatEvent event, @Event.Result Float prevResult) {
+            return prevResult + 2;
+        }
+
+    }
+
     public static class OnlyReturnListener {
 
         @Event.Subscribe
@@ -0,0 +1,106 @@
+package mail.core.test.event;
+
+import mail.api.annotations.ClientOnly;
+import mail.api.annotations.ServerOnly;
+import mail.api.event.Event;
+import mail.api.game.Environment;
+import mail.core.event.EventBusImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class EventSideUnitTests {
+
+    @Test
+    public void sideAware() {
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(Listener.class);
+
+        TestSideAwareEvent client = eventBus.post(new TestSideAwareEvent(Environment.Side.CLIENT));
+        Assertions.assertEquals(0b011, client.received, "Expected the common and client handlers only!");
+
+        TestSideAwareEvent server = eventBus.post(new TestSideAwareEvent(Environment.Side.SERVER));
+        Assertions.assertEquals(0b101, server.received, "Expected the common and server handlers only!");
+
+        TestSideAwareEvent none = eventBus.post(new TestSideAwareEvent(null));
+        Assertions.assertEquals(0b001, none.received, "Expected the common handler only!");
+    }
+
+    @Test
+    public void notSideAware() {
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(Listener.class);
+
+        TestEvent event = eventBus.post(new TestEvent());
+        Assertions.assertEquals(0b111, event.received, "Expected all handlers!");
+    }
+
+    @Test
+    public void boundToSide() {
+        EventBusImpl eventBus = new EventBusImpl(Environment.Side.SERVER);
+        eventBus.register(Listener.class);
+        eventBus.register(ClientListener.class);
+
+        Assertions.assertFalse(eventBus.hasListeners(ClientEvent.class), "Client-only handlers were kept!");
+
+        TestEvent event = eventBus.post(new TestEvent());
+        Assertions.assertEquals(0b101, event.received, "Expected the common and server handlers only!");
+
+        TestSideAwareEvent client = eventBus.post(new TestSideAwareEvent(Environment.Side.CLIENT));
+        Assertions.assertEquals(0b001, client.received, "Expected the common handler only!");
+    }
+
+    private static class TestEvent implements Event {
+
+        int received = 0;
+
+    }
+
+    private static class TestSideAwareEvent extends TestEvent implements Event.SideAware {
+
+        private final Environment.Side side;
+
+        private TestSideAwareEvent(Environment.Side side) {
+            this.side = side;
+        }
+
+        @Override
+        public Environment.Side getEventSide() {
+            return side;
+        }
+
+    }
+
+    private static class ClientEvent implements Event {
+    }
+
+    public static class Listener {
+
+        @Event.Subscribe
+        public static void onEvent(TestEvent event) {
+            event.received |= 0b001;
+        }
+
+        @ClientOnly
+        @Event.Subscribe
+        public static void onClientEvent(TestEvent event) {
+            event.received |= 0b010;
+        }
+
+        @ServerOnly
+        @Event.Subscribe
+        public static void onServerEvent(TestEvent event) {
+            event.received |= 0b100;
+        }
+
+    }
+
+    public static class ClientListener {
+
+        @ClientOnly
+        @Event.Subscribe
+        public static void onEvent(ClientEvent event) {
+        }
+
+    }
+
+}
@@ -0,0 +1,305 @@
+package mail.core.test.event;
+
+import mail.api.event.Event;
+import mail.api.event.EventPhase;
+import mail.api.event.EventBus;
+import mail.core.event.EventBusImpl;
+import mail.core.event.EventMetrics;
+import mail.core.event.EventTrace;
+import mail.core.event.EventTraceRecorder;
+import mail.core.event.EventTraceReplay;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class EventTraceUnitTests {
+
+    private Path file;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        file = Files.createTempFile("mail-event-trace", ".trace");
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void recordsPosts() throws IOException {
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(Listener.class);
+        try (EventTraceRecorder recorder = EventTraceRecorder.open(file)) {
+            eventBus.startTracing(recorder);
+            eventBus.post(new TestEvent());
+            eventBus.post(new UnheardEvent());
+        }
+
+        List<EventTrace.Post> posts = EventTrace.read(file).getPosts();
+        Assertions.assertEquals(2, posts.size(), "Not every post was recorded!");
+
+        EventTrace.Post post = posts.get(0);
+        Assertions.assertEquals(TestEvent.class.getName(), post.getEventClass(), "The event class was not recorded!");
+        Assertions.assertEquals(Thread.currentThread().getName(), post.getThread(), "The thread was not recorded!");
+        Assertions.assertEquals(0, post.getDepth(), "A top-level post was recorded as nested!");
+        Assertions.assertTrue(post.reachedPhase(EventPhase.POST), "The phases of the post were not recorded!");
+        Assertions.assertFalse(post.reachedPhase(EventPhase.CANCELLATION), "A phase that wasn't fired was recorded!");
+        Assertions.assertFalse(post.wasCanceled(), "The post was recorded as canceled!");
+
+        List<EventTrace.Invocation> invocations = post.getInvocations();
+        Assertions.assertEquals(2, invocations.size(), "Not every handler invocation was recorded!");
+        Assertions.assertEquals(Listener.class.getName() + "#onPre", invocations.get(0).getHandler(),
+                "The handlers were not recorded in the order they ran in!");
+        Assertions.assertEquals(EventPhase.PRE, invocations.get(0).getPhase(), "The phase of the handler was not recorded!");
+        Assertions.assertEquals(EventPhase.DEFAULT, invocations.get(1).getPhase(), "The phase of the handler was not recorded!");
+
+        Assertions.assertEquals(UnheardEvent.class.getName(), posts.get(1).getEventClass(),
+                "An event without listeners was not recorded!");
+        Assertions.assertTrue(posts.get(1).getInvocations().isEmpty(), "An event without listeners had invocations!");
+    }
+
+    @Test
+    public void recordsCancellation() throws IOException {
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(Listener.class);
+        try (EventTraceRecorder recorder = EventTraceRecorder.open(file)) {
+            eventBus.startTracing(recorder);
+            eventBus.post(new TestCancelableEvent());
+        }
+
+        EventTrace.Post post = EventTrace.read(file).getPosts().get(0);
+        Assertions.assertTrue(post.reachedPhase(EventPhase.CANCELLATION), "The cancellation phase was not recorded!");
+        Assertions.assertTrue(post.wasCanceled(), "The cancellation was not recorded!");
+    }
+
+    @Test
+    public void recordsNestedPosts() throws IOException {
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(new NestingListener(eventBus));
+        try (EventTraceRecorder recorder = EventTraceRecorder.open(file)) {
+            eventBus.startTracing(recorder);
+            eventBus.post(new OuterEvent());
+        }
+
+        List<EventTrace.Post> posts = EventTrace.read(file).getPosts();
+        Assertions.assertEquals(2, posts.size(), "Not every post was recorded!");
+        Assertions.assertEquals(OuterEvent.class.getName(), posts.get(0).getEventClass(),
+                "The posts were not ordered by when they started!");
+        Assertions.assertEquals(0, posts.get(0).getDepth(), "The outer post was recorded as nested!");
+        Assertions.assertEquals(1, posts.get(1).getDepth(), "The inner post was not recorded as nested!");
+        Assertions.assertEquals(2, posts.get(0).getInvocations().size(),
+                "The outer post did not keep its own invocations!");
+        Assertions.assertEquals(1, posts.get(1).getInvocations().size(),
+                "The inner post did not keep its own invocations!");
+    }
+
+    @Test
+    public void recordsManualPosts() throws IOException {
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(Listener.class);
+        try (EventTraceRecorder recorder = EventTraceRecorder.open(file)) {
+            eventBus.startTracing(recorder);
+            EventBus.PostedEvent posted = eventBus.postManually(new TestEvent());
+            posted.fireDefault();
+            eventBus.post(new UnheardEvent());
+            posted.firePost();
+        }
+
+        List<EventTrace.Post> posts = EventTrace.read(file).getPosts();
+        Assertions.assertEquals(2, posts.size(), "Not every post was recorded!");
+        EventTrace.Post post = posts.get(0);
+        Assertions.assertEquals(TestEvent.class.getName(), post.getEventClass(), "The manual post was not recorded!");
+        Assertions.assertFalse(post.reachedPhase(EventPhase.PRE), "A phase that was skipped was recorded!");
+        Assertions.assertTrue(post.reachedPhase(EventPhase.DEFAULT), "A fired phase was not recorded!");
+        Assertions.assertEquals(1, post.getInvocations().size(), "The invocations of the manual post were not recorded!");
+        Assertions.assertEquals(0, posts.get(1).getDepth(),
+                "A post made in between the phases of a manual post was recorded as nested!");
+    }
+
+    @Test
+    public void spansChunks() throws IOException {
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(Listener.class);
+        try (EventTraceRecorder recorder = EventTraceRecorder.open(file, 1024)) {
+            eventBus.startTracing(recorder);
+            for (int i = 0; i < 500; i++) {
+                eventBus.post(new TestEvent());
+            }
+            Assertions.assertTrue(recorder.getLength() > 1024, "The trace did not grow past a single chunk!");
+        }
+
+        List<EventTrace.Post> posts = EventTrace.read(file).getPosts();
+        Assertions.assertEquals(500, posts.size(), "Posts were lost between chunks!");
+        for (EventTrace.Post post : posts) {
+            Assertions.assertEquals(2, post.getInvocations().size(), "Invocations were lost between chunks!");
+        }
+    }
+
+    @Test
+    public void stopTracing() throws IOException {
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(Listener.class);
+        try (EventTraceRecorder recorder = EventTraceRecorder.open(file)) {
+            eventBus.startTracing(recorder);
+            eventBus.post(new TestEvent());
+            eventBus.stopTracing();
+            eventBus.post(new TestEvent());
+            Assertions.assertNull(eventBus.getTraceRecorder(), "The bus was still traced!");
+        }
+
+        Assertions.assertEquals(1, EventTrace.read(file).getPosts().size(), "A post was recorded after tracing stopped!");
+    }
+
+    @Test
+    public void replay() throws IOException {
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(Listener.class);
+        eventBus.register(new NestingListener(eventBus));
+        try (EventTraceRecorder recorder = EventTraceRecorder.open(file)) {
+            eventBus.startTracing(recorder);
+            for (int i = 0; i < 10; i++) {
+                eventBus.post(new TestEvent());
+                eventBus.post(new TestCancelableEvent());
+                eventBus.post(new OuterEvent());
+            }
+        }
+
+        EventTrace trace = EventTrace.read(file);
+        long handlerNanos = 0;
+        for (EventTrace.Post post : trace.getPosts()) {
+            if (post.getDepth() != 0) continue;
+            for (EventTrace.Invocation invocation : post.getInvocations()) {
+                handlerNanos += invocation.getNanos();
+            }
+        }
+
+        EventTraceReplay replay = new EventTraceReplay(trace);
+        Assertions.assertEquals(30, replay.getPostCount(), "Nested posts were replayed on their own!");
+        EventTraceReplay.Result result = replay.replay(new EventBusImpl(), true);
+        Assertions.assertEquals(30, result.getPosts(), "Not every post was replayed!");
+        Assertions.assertTrue(result.getDispatchNanos() >= handlerNanos,
+                "The synthetic handlers did not take as long as the recorded ones!");
+        Assertions.assertTrue(result.getElapsedNanos() >= trace.getPosts().get(29).getStartNanos()
+                - trace.getPosts().get(0).getStartNanos(), "The replay did not keep the recorded timing!");
+    }
+
+    @Test
+    public void replayKeepsClassesAndPhases() throws IOException {
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.register(Listener.class);
+        eventBus.register(new NestingListener(eventBus));
+        try (EventTraceRecorder recorder = EventTraceRecorder.open(file)) {
+            eventBus.startTracing(recorder);
+            for (int i = 0; i < 3; i++) {
+                eventBus.post(new TestEvent());
+                eventBus.post(new TestCancelableEvent());
+            }
+            eventBus.post(new OuterEvent());
+            EventBus.PostedEvent posted = eventBus.postManually(new TestEvent());
+            posted.fireDefault();
+            posted.firePost();
+        }
+        EventTraceReplay replay = new EventTraceReplay(EventTrace.read(file));
+        EventBusImpl replayBus = new EventBusImpl();
+        EventMetrics metrics = replayBus.enableMetrics();
+        replay.replay(replayBus, false);
+        EventMetrics.Snapshot snapshot = metrics.snapshot();
+
+        // Every recorded class was posted a different number of times, which tells their synthetic classes apart
+        Map<ClassLoader, Long> posts = new HashMap<>();
+        for (Map.Entry<Class<? extends Event>, Long> entry : snapshot.getPostCounts().entrySet()) {
+            posts.put(entry.getKey().getClassLoader(), entry.getValue());
+        }
+        Assertions.assertEquals(3, posts.size(), "Every recorded event class needs a synthetic one of its own!");
+
+        Map<String, Long> expected = new HashMap<>();
+        expected.put("4 PreHandler", 3L);
+        expected.put("4 DefaultHandler", 4L);
+        expected.put("3 CancellationHandler", 3L);
+        expected.put("1 PreHandler", 1L);
+        expected.put("1 DefaultHandler", 1L);
+        Map<String, Long> invocations = new HashMap<>();
+        for (EventMetrics.HandlerMetrics handler : snapshot.getHandlers()) {
+            Class<?> type = handler.getDeclaringClass();
+            invocations.put(posts.get(type.getClassLoader()) + " " + type.getSimpleName(), handler.getInvocations());
+        }
+        Assertions.assertEquals(expected, invocations,
+                "The synthetic handlers were not invoked as often as the handlers they stand in for!");
+    }
+
+    public static class TestEvent implements Event {
+    }
+
+    public static class UnheardEvent implements Event {
+    }
+
+    public static class TestCancelableEvent implements Event.Cancelable {
+    }
+
+    public static class OuterEvent implements Event {
+    }
+
+    public static class InnerEvent implements Event {
+    }
+
+    public static class Listener {
+
+        @Event.Subscribe(phase = EventPhase.PRE)
+        public static void onPre(TestEvent event) {
+            spin();
+        }
+
+        @Event.Subscribe
+        public static void onEvent(TestEvent event) {
+            spin();
+        }
+
+        @Event.Subscribe(phase = EventPhase.CANCELLATION)
+        public static boolean onCancellation(TestCancelableEvent event, @Event.Result boolean canceled) {
+            return true;
+        }
+
+    }
+
+    public static class NestingListener {
+
+        private final EventBusImpl eventBus;
+
+        public NestingListener(EventBusImpl eventBus) {
+            this.eventBus = eventBus;
+        }
+
+        @Event.Subscribe(phase = EventPhase.PRE)
+        public void onPre(OuterEvent event) {
+            spin();
+        }
+
+        @Event.Subscribe
+        public void onOuter(OuterEvent event) {
+            eventBus.post(new InnerEvent());
+        }
+
+        @Event.Subscribe
+        public void onInner(InnerEvent event) {
+            spin();
+        }
+
+    }
+
+    private static void spin() {
+        long end = System.nanoTime() + 10_000;
+        while (System.nanoTime() < end) {
+            // Gives the handlers something to time
+        }
+    }
+
+}
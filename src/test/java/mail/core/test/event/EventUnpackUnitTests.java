@@ -34,6 +34,14 @@ public class EventUnpackUnitTests {
         eventBus.post(new TestEvent());
     }
 
+    @Test
+    public void unpackWithResult() {
+        EventBus eventBus = new EventBusImpl();
+        eventBus.register(new ResultUnpackListener());
+        int result = eventBus.post(new TestResultEvent());
+        Assertions.assertEquals(TestResultEvent.VALUE + 1, result);
+    }
+
     public static class TestEvent implements Event {
 
         private static final int IMMUTABLE_VALUE = -1;
@@ -55,6 +63,22 @@ public class EventUnpackUnitTests {
 
     }
 
+    public static class TestResultEvent implements Event.WithResult<Integer> {
+
+        private static final int VALUE = 41;
+
+        @Property("value")
+        public int getValue() {
+            return VALUE;
+        }
+
+        @Override
+        public Integer getDefaultResult() {
+            return 1;
+        }
+
+    }
+
     public static class ValidListener {
 
         @Event.Subscribe
@@ -105,4 +129,13 @@ public class EventUnpackUnitTests {
 
     }
 
+    public static class ResultUnpackListener {
+
+        @Event.Subscribe
+        public Integer onEvent(TestResultEvent event, @Event.Result Integer prevResult, @Event.Unpack("value") int value) {
+            return prevResult + value;
+        }
+
+    }
+
 }
@@ -0,0 +1,115 @@
+package mail.core.test.event;
+
+import mail.api.event.Event;
+import mail.core.event.EventBusImpl;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+public class EventWeakListenerUnitTests {
+
+    private static final int LISTENERS = 100000;
+    private static final long HEAP_TOLERANCE = 256 * 1024;
+
+    @Test
+    public void weakListenerCollected() throws InterruptedException {
+        EventBusImpl eventBus = new EventBusImpl();
+        Listener listener = new Listener();
+        eventBus.registerWeak(listener);
+
+        eventBus.post(new TestEvent());
+        Assertions.assertEquals(1, listener.received, "The weak listener did not receive the event!");
+        Assertions.assertTrue(eventBus.hasListeners(TestEvent.class), "The weak listener was not registered!");
+
+        WeakReference<Listener> reference = new WeakReference<>(listener);
+        listener = null;
+        awaitCollection(reference);
+        awaitPurge(eventBus);
+
+        Assertions.assertFalse(eventBus.hasListeners(TestEvent.class), "The collected listener was not purged!");
+    }
+
+    @Test
+    public void weakListenerUnregister() {
+        EventBusImpl eventBus = new EventBusImpl();
+        Listener listener = new Listener();
+        eventBus.registerWeak(listener);
+        eventBus.unregister(listener);
+
+        eventBus.post(new TestEvent());
+        Assertions.assertEquals(0, listener.received, "The weak listener received the event after unregistering!");
+    }
+
+    @Test
+    public void weakListenersReleaseMemory() throws InterruptedException {
+        EventBusImpl eventBus = new EventBusImpl();
+        eventBus.post(new TestEvent());
+        long baseline = usedHeap();
+
+        List<Listener> listeners = new ArrayList<>(LISTENERS);
+        for (int i = 0; i < LISTENERS; i++) {
+            Listener listener = new Listener();
+            listeners.add(listener);
+            eventBus.registerWeak(listener);
+        }
+        eventBus.post(new TestEvent());
+        Assertions.assertEquals(1, listeners.get(LISTENERS - 1).received, "The weak listeners did not receive the event!");
+
+        WeakReference<Listener> last = new WeakReference<>(listeners.get(LISTENERS - 1));
+        listeners = null;
+        awaitCollection(last);
+        awaitPurge(eventBus);
+        eventBus.post(new TestEvent());
+
+        Assertions.assertFalse(eventBus.hasListeners(TestEvent.class), "The collected listeners were not purged!");
+        long retained = usedHeap() - baseline;
+        Assertions.assertTrue(retained < HEAP_TOLERANCE, "The bus retained " + retained + " bytes after purging!");
+    }
+
+    private static void awaitCollection(WeakReference<?> reference) throws InterruptedException {
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        Assertions.assertNull(reference.get(), "The listener was never garbage collected!");
+    }
+
+    /**
+     * Purges the collected listeners until none are left. References are only enqueued some time after they are
+     * cleared, so a purge right after a collection may not see them yet.
+     */
+    private static void awaitPurge(EventBusImpl eventBus) throws InterruptedException {
+        eventBus.purgeCollectedListeners();
+        for (int i = 0; i < 50 && eventBus.hasListeners(TestEvent.class); i++) {
+            Thread.sleep(10);
+            eventBus.purgeCollectedListeners();
+        }
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static class TestEvent implements Event {
+    }
+
+    public static class Listener {
+
+        private int received;
+
+        @Event.Subscribe
+        public void onEvent(TestEvent event) {
+            received++;
+        }
+
+    }
+
+}